@@ -11,12 +11,90 @@ package EDD;
 public class FileEntry {
     public String name;
     public int size;
+    // Bloques del archivo como tramos (inicio, longitud), en orden
+    public ListaEnlazada<Tramo> tramos;
+    // Formato viejo de filesystem.json (un nodo por bloque); migrarBloques() lo pasa a tramos
     public ListaEnlazada<Integer> blocks;
 
     public FileEntry(String name, int size) {
         this.name = name;
         this.size = size;
-        this.blocks = new ListaEnlazada<>();
+        this.tramos = new ListaEnlazada<>();
+    }
+
+    // Convierte la lista vieja de bloques sueltos en tramos, juntando los consecutivos
+    public void migrarBloques() {
+        if (tramos == null) {
+            tramos = new ListaEnlazada<>();
+            Tramo ultimo = null;
+            for (Nodo<Integer> actual = blocks == null ? null : blocks.getCabeza(); actual != null; actual = actual.siguiente) {
+                if (ultimo != null && ultimo.fin() == actual.dato) {
+                    ultimo.longitud++;
+                } else {
+                    ultimo = new Tramo(actual.dato, 1);
+                    tramos.agregar(ultimo);
+                }
+            }
+        }
+        blocks = null;
+    }
+
+    // Primer bloque del archivo, o -1 si no tiene
+    public int primerBloque() {
+        return tramos.getCabeza() == null ? -1 : tramos.getCabeza().dato.inicio;
+    }
+
+    // Si el bloque pertenece a alguno de los tramos del archivo
+    public boolean contieneBloque(int bloque) {
+        for (Nodo<Tramo> actual = tramos.getCabeza(); actual != null; actual = actual.siguiente) {
+            if (bloque >= actual.dato.inicio && bloque < actual.dato.fin()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int contarBloques() {
+        int total = 0;
+        for (Nodo<Tramo> actual = tramos.getCabeza(); actual != null; actual = actual.siguiente) {
+            total += actual.dato.longitud;
+        }
+        return total;
+    }
+
+    // Todos los bloques en orden
+    public int[] bloques() {
+        return bloquesDe(tramos);
+    }
+
+    public static int[] bloquesDe(ListaEnlazada<Tramo> tramos) {
+        int total = 0;
+        for (Nodo<Tramo> actual = tramos.getCabeza(); actual != null; actual = actual.siguiente) {
+            total += actual.dato.longitud;
+        }
+        int[] bloques = new int[total];
+        int i = 0;
+        for (Nodo<Tramo> actual = tramos.getCabeza(); actual != null; actual = actual.siguiente) {
+            for (int b = actual.dato.inicio; b < actual.dato.fin(); b++) {
+                bloques[i++] = b;
+            }
+        }
+        return bloques;
+    }
+
+    // Junta los tramos seguidos que quedaron pegados (p. ej. después de compactar)
+    public void unirTramosVecinos() {
+        ListaEnlazada<Tramo> unidos = new ListaEnlazada<>();
+        Tramo ultimo = null;
+        for (Nodo<Tramo> actual = tramos.getCabeza(); actual != null; actual = actual.siguiente) {
+            if (ultimo != null && ultimo.fin() == actual.dato.inicio) {
+                ultimo.longitud += actual.dato.longitud;
+            } else {
+                ultimo = new Tramo(actual.dato.inicio, actual.dato.longitud);
+                unidos.agregar(ultimo);
+            }
+        }
+        tramos = unidos;
     }
 
     @Override
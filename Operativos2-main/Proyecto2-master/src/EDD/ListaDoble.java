@@ -0,0 +1,129 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package EDD;
+
+/**
+ * Lista doblemente enlazada con cabeza y cola.
+ * Quien guarda la referencia al nodo puede quitarlo o moverlo en O(1),
+ * sin recorrer la lista como en ListaEnlazada.
+ *
+ * @author yarge
+ */
+public class ListaDoble<T> {
+    private NodoDoble<T> cabeza;
+    private NodoDoble<T> cola;
+    private int tamaño;
+
+    public ListaDoble() {
+        this.cabeza = null;
+        this.cola = null;
+        this.tamaño = 0;
+    }
+
+    // Crea un nodo para el dato y lo agrega al final
+    public NodoDoble<T> agregarAlFinal(T dato) {
+        NodoDoble<T> nodo = new NodoDoble<>(dato);
+        enlazarAlFinal(nodo);
+        return nodo;
+    }
+
+    // Crea un nodo para el dato y lo agrega al inicio
+    public NodoDoble<T> agregarAlInicio(T dato) {
+        NodoDoble<T> nodo = new NodoDoble<>(dato);
+        nodo.siguiente = cabeza;
+        if (cabeza == null) {
+            cola = nodo;
+        } else {
+            cabeza.anterior = nodo;
+        }
+        cabeza = nodo;
+        tamaño++;
+        return nodo;
+    }
+
+    // Crea un nodo para el dato y lo inserta justo después de 'referencia'
+    public NodoDoble<T> insertarDespues(NodoDoble<T> referencia, T dato) {
+        if (referencia == cola) {
+            return agregarAlFinal(dato);
+        }
+        NodoDoble<T> nodo = new NodoDoble<>(dato);
+        nodo.anterior = referencia;
+        nodo.siguiente = referencia.siguiente;
+        referencia.siguiente.anterior = nodo;
+        referencia.siguiente = nodo;
+        tamaño++;
+        return nodo;
+    }
+
+    // Agrega al final un nodo que no pertenece a ninguna lista
+    public void enlazarAlFinal(NodoDoble<T> nodo) {
+        nodo.siguiente = null;
+        nodo.anterior = cola;
+        if (cola == null) {
+            cabeza = nodo;
+        } else {
+            cola.siguiente = nodo;
+        }
+        cola = nodo;
+        tamaño++;
+    }
+
+    // Desenlaza un nodo que pertenece a esta lista
+    public void quitar(NodoDoble<T> nodo) {
+        if (nodo.anterior != null) {
+            nodo.anterior.siguiente = nodo.siguiente;
+        } else {
+            cabeza = nodo.siguiente;
+        }
+        if (nodo.siguiente != null) {
+            nodo.siguiente.anterior = nodo.anterior;
+        } else {
+            cola = nodo.anterior;
+        }
+        nodo.anterior = null;
+        nodo.siguiente = null;
+        tamaño--;
+    }
+
+    // Mueve un nodo de esta lista a la cola
+    public void moverAlFinal(NodoDoble<T> nodo) {
+        if (nodo == cola) {
+            return;
+        }
+        quitar(nodo);
+        enlazarAlFinal(nodo);
+    }
+
+    // Quita y devuelve el nodo de la cabeza, o null si está vacía
+    public NodoDoble<T> quitarPrimero() {
+        NodoDoble<T> nodo = cabeza;
+        if (nodo != null) {
+            quitar(nodo);
+        }
+        return nodo;
+    }
+
+    public NodoDoble<T> getCabeza() {
+        return cabeza;
+    }
+
+    public NodoDoble<T> getCola() {
+        return cola;
+    }
+
+    public int contarElementos() {
+        return tamaño;
+    }
+
+    public boolean estaVacia() {
+        return cabeza == null;
+    }
+
+    public void vaciar() {
+        cabeza = null;
+        cola = null;
+        tamaño = 0;
+    }
+}
@@ -10,6 +10,9 @@ package EDD;
  */
 public class ListaEnlazada<T> {
     private Nodo<T> cabeza;
+    // Último nodo, para agregar al final sin recorrer. No se guarda en el JSON:
+    // tras cargar (o eliminar) se vuelve a buscar una vez.
+    private transient Nodo<T> ultimo;
 
     public ListaEnlazada() {
         this.cabeza = null;
@@ -21,17 +24,21 @@ public class ListaEnlazada<T> {
         if (cabeza == null) {
             cabeza = nuevoNodo;
         } else {
-            Nodo<T> actual = cabeza;
-            while (actual.siguiente != null) {
-                actual = actual.siguiente;
+            if (ultimo == null) {
+                ultimo = cabeza;
+                while (ultimo.siguiente != null) {
+                    ultimo = ultimo.siguiente;
+                }
             }
-            actual.siguiente = nuevoNodo;
+            ultimo.siguiente = nuevoNodo;
         }
+        ultimo = nuevoNodo;
     }
 
     // Método para eliminar un elemento por valor
     public boolean eliminar(T dato) {
         if (cabeza == null) return false;
+        ultimo = null;
         if (cabeza.dato.equals(dato)) {
             cabeza = cabeza.siguiente;
             return true;
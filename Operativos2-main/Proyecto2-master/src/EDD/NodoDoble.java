@@ -0,0 +1,21 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package EDD;
+
+/**
+ *
+ * @author yarge
+ */
+public class NodoDoble<T> {
+    public T dato;
+    public NodoDoble<T> anterior;
+    public NodoDoble<T> siguiente;
+
+    public NodoDoble(T dato) {
+        this.dato = dato;
+        this.anterior = null;
+        this.siguiente = null;
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package EDD;
+
+/**
+ * Tramo de bloques seguidos (extent): desde 'inicio', 'longitud' bloques.
+ *
+ * @author yarge
+ */
+public class Tramo {
+    public int inicio;
+    public int longitud;
+
+    public Tramo(int inicio, int longitud) {
+        this.inicio = inicio;
+        this.longitud = longitud;
+    }
+
+    // Primer bloque después del tramo
+    public int fin() {
+        return inicio + longitud;
+    }
+
+    @Override
+    public String toString() {
+        return longitud == 1 ? String.valueOf(inicio) : inicio + "-" + (fin() - 1);
+    }
+}
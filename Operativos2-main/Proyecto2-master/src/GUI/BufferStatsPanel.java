@@ -4,6 +4,7 @@
 package GUI;
 
 import SISTEMA.BufferCache;
+import SISTEMA.BufferSnapshot;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -16,6 +17,7 @@ import java.awt.*;
 
 public class BufferStatsPanel extends JPanel {
     private BufferCache buffer;
+    private BufferSnapshot datos; // Estadísticas leídas una sola vez por actualización
     private ChartPanel hitMissChartPanel;
     private ChartPanel hitRateChartPanel;
     private ChartPanel capacityChartPanel;
@@ -29,6 +31,8 @@ public class BufferStatsPanel extends JPanel {
     }
 
     private void inicializarGraficos() {
+        datos = buffer.getSnapshot();
+
         // Gráfico de Hits vs Misses
         hitMissChartPanel = crearGraficoHitsMisses();
         hitMissChartPanel.setPreferredSize(new Dimension(400, 300));
@@ -52,8 +56,8 @@ public class BufferStatsPanel extends JPanel {
 
     private ChartPanel crearGraficoHitsMisses() {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        dataset.addValue(buffer.getHits(), "Accesos", "Hits");
-        dataset.addValue(buffer.getMisses(), "Accesos", "Misses");
+        dataset.addValue(datos.getHits(), "Accesos", "Hits");
+        dataset.addValue(datos.getMisses(), "Accesos", "Misses");
 
         JFreeChart chart = ChartFactory.createBarChart(
                 "📊 Hits vs Misses",
@@ -92,13 +96,13 @@ public class BufferStatsPanel extends JPanel {
     private ChartPanel crearGraficoHitRate() {
         DefaultPieDataset dataset = new DefaultPieDataset();
         
-        int hits = buffer.getHits();
-        int misses = buffer.getMisses();
-        int total = hits + misses;
+        long hits = datos.getHits();
+        long misses = datos.getMisses();
+        long total = hits + misses;
         
         if (total > 0) {
-            dataset.setValue("Hits (" + String.format("%.1f%%", buffer.getHitRate()) + ")", hits);
-            dataset.setValue("Misses (" + String.format("%.1f%%", 100 - buffer.getHitRate()) + ")", misses);
+            dataset.setValue("Hits (" + String.format("%.1f%%", datos.getHitRate()) + ")", hits);
+            dataset.setValue("Misses (" + String.format("%.1f%%", 100 - datos.getHitRate()) + ")", misses);
         } else {
             dataset.setValue("Sin datos", 1);
         }
@@ -118,8 +122,8 @@ public class BufferStatsPanel extends JPanel {
 
     private ChartPanel crearGraficoCapacidad() {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        dataset.addValue(buffer.getSize(), "Bloques", "En Uso");
-        dataset.addValue(buffer.getCapacity() - buffer.getSize(), "Bloques", "Libre");
+        dataset.addValue(datos.getSize(), "Bloques", "En Uso");
+        dataset.addValue(datos.getCapacity() - datos.getSize(), "Bloques", "Libre");
 
         JFreeChart chart = ChartFactory.createBarChart(
                 "💾 Uso del Buffer",
@@ -156,16 +160,26 @@ public class BufferStatsPanel extends JPanel {
     }
 
     private JPanel crearPanelInfo() {
-        JPanel panel = new JPanel(new GridLayout(6, 1, 5, 5));
+        JPanel panel = new JPanel(new GridLayout(9, 1, 5, 5));
         panel.setBorder(BorderFactory.createTitledBorder("📋 Información Detallada"));
         panel.setBackground(new Color(250, 250, 250));
         
-        JLabel lblPolicy = new JLabel("Política: " + buffer.getPolicy());
-        JLabel lblCapacity = new JLabel("Capacidad: " + buffer.getCapacity() + " bloques");
-        JLabel lblUsed = new JLabel("En uso: " + buffer.getSize() + " bloques");
-        JLabel lblHits = new JLabel("Hits totales: " + buffer.getHits());
-        JLabel lblMisses = new JLabel("Misses totales: " + buffer.getMisses());
-        JLabel lblHitRate = new JLabel(String.format("Hit Rate: %.2f%%", buffer.getHitRate()));
+        JLabel lblPolicy = new JLabel("Política: " + datos.getPolicy());
+        JLabel lblCapacity = new JLabel("Capacidad: " + datos.getCapacity() + " bloques"
+                + (buffer.isFueraDelHeap() ? " (slab fuera del heap, " + buffer.getBytesFueraDelHeap() / 1024 + " KB)" : ""));
+        JLabel lblUsed = new JLabel("En uso: " + datos.getSize() + " bloques");
+        JLabel lblHits = new JLabel("Hits totales: " + datos.getHits());
+        JLabel lblMisses = new JLabel("Misses totales: " + datos.getMisses());
+        JLabel lblHitRate = new JLabel(String.format("Hit Rate: %.2f%%", datos.getHitRate()));
+        JLabel lblDetalle = new JLabel(datos.getDetallePolitica());
+        JLabel lblWriteBack = new JLabel(datos.isWriteBack()
+                ? String.format("Write-back: %d sucios | %d guardados para %d bloques",
+                        datos.getBloquesSucios(), datos.getEscriturasDisco(), datos.getBloquesEscritos())
+                : "Write-through");
+        JLabel lblReadAhead = new JLabel(String.format(
+                "Read-ahead: ventana %d | precargados %d | aprovechados %d | desperdiciados %d",
+                datos.getVentanaReadAhead(), datos.getPrecargados(),
+                datos.getPrecargasAprovechadas(), datos.getPrecargasDesperdiciadas()));
         
         Font font = new Font("Arial", Font.PLAIN, 13);
         lblPolicy.setFont(font);
@@ -174,6 +188,9 @@ public class BufferStatsPanel extends JPanel {
         lblHits.setFont(font);
         lblMisses.setFont(font);
         lblHitRate.setFont(font);
+        lblDetalle.setFont(font);
+        lblWriteBack.setFont(font);
+        lblReadAhead.setFont(font);
         
         panel.add(lblPolicy);
         panel.add(lblCapacity);
@@ -181,6 +198,9 @@ public class BufferStatsPanel extends JPanel {
         panel.add(lblHits);
         panel.add(lblMisses);
         panel.add(lblHitRate);
+        panel.add(lblDetalle);
+        panel.add(lblWriteBack);
+        panel.add(lblReadAhead);
         
         return panel;
     }
@@ -14,6 +14,7 @@ import javax.swing.*;
 import javax.swing.tree.*;
 import java.awt.*;
 import javax.swing.Timer;
+import java.util.stream.IntStream;
 
 public class FileSystemGUI extends JFrame {
     private FileSystem fileSystem;
@@ -23,7 +24,7 @@ public class FileSystemGUI extends JFrame {
     private DefaultMutableTreeNode rootNode;
     private JButton btnCrearArchivo, btnEliminarArchivo, btnActualizarArchivo, btnRestaurarArchivo, 
                     btnCrearDirectorio, btnMoverArchivo, btnCambiarUsuario, btnGuardar, btnBorrarSistema,
-                    btnProcesarCola, btnLimpiarBuffer, btnVerGraficosBuffer;
+                    btnProcesarCola, btnLimpiarBuffer, btnVerGraficosBuffer, btnLeerArchivo;
     private JLabel lblModo, lblInfo, lblPolicy, lblQueueSize, lblBufferPolicy, lblBufferStats;
     private DiskPanel diskPanel;
     private boolean isAdmin = true;
@@ -31,6 +32,15 @@ public class FileSystemGUI extends JFrame {
     private DefaultTableModel infoTableModel, processTableModel, bufferTableModel;
     private JComboBox<SchedulingPolicy> policyComboBox;
     private JComboBox<CachePolicy> cachePolicyComboBox;
+    private JCheckBox chkWriteBack;
+    private JComboBox<Integer> capacidadBufferComboBox;
+    private JCheckBox chkFueraDelHeap;
+    private JCheckBox chkColaJusta;
+    private JCheckBox chkAnticipatorio;
+    private JComboBox<Integer> discosComboBox;
+    private JComboBox<Integer> ncqComboBox;
+    private JComboBox<AllocationPolicy> asignacionComboBox;
+    private JToggleButton btnDesfragmentar;
     private Timer processTimer;
 
     public FileSystemGUI() {
@@ -47,6 +57,7 @@ public class FileSystemGUI extends JFrame {
         
         JMenuItem menuSalir = new JMenuItem("Salir");
         menuSalir.addActionListener(e -> {
+            fileSystem.sync();
             fileSystem.guardarEnArchivo();
             System.exit(0);
         });
@@ -108,12 +119,46 @@ public class FileSystemGUI extends JFrame {
         policyComboBox = new JComboBox<>(SchedulingPolicy.values());
         policyComboBox.addActionListener(e -> cambiarPolitica());
         lblQueueSize = new JLabel("Procesos de I/O en cola: 0");
+        chkColaJusta = new JCheckBox("Cola justa por usuario");
+        chkColaJusta.setToolTipText("Reparte los despachos entre usuarios (Deficit Round Robin); el Administrador pesa el doble");
+        chkColaJusta.addActionListener(e -> fileSystem.setColaJusta(chkColaJusta.isSelected()));
         
         diskPolicyPanel.add(new JLabel("📋 Planificación:"));
         diskPolicyPanel.add(policyComboBox);
         diskPolicyPanel.add(lblPolicy);
         diskPolicyPanel.add(Box.createHorizontalStrut(20));
         diskPolicyPanel.add(lblQueueSize);
+        diskPolicyPanel.add(chkColaJusta);
+        chkAnticipatorio = new JCheckBox("Anticipatorio");
+        chkAnticipatorio.setToolTipText("Tras una lectura espera hasta 50 ms otra lectura del mismo usuario a menos de 32 bloques");
+        chkAnticipatorio.addActionListener(e -> fileSystem.setAnticipacion(chkAnticipatorio.isSelected() ? 50 : 0, 32));
+        diskPolicyPanel.add(chkAnticipatorio);
+        discosComboBox = new JComboBox<>(new Integer[]{1, 2, 4, 8});
+        discosComboBox.setToolTipText("Discos del arreglo RAID-0 (los archivos se reparten en franjas entre ellos)");
+        discosComboBox.addActionListener(e -> cambiarDiscos());
+        diskPolicyPanel.add(new JLabel("🗄️ Discos:"));
+        diskPolicyPanel.add(discosComboBox);
+        ncqComboBox = new JComboBox<>(new Integer[]{1, 4, 8, 16, 32});
+        ncqComboBox.setToolTipText("Pedidos por despacho; el lote se reordena con el recorrido más corto del cabezal (1 = sin NCQ)");
+        ncqComboBox.addActionListener(e -> fileSystem.setProfundidadNCQ((Integer) ncqComboBox.getSelectedItem()));
+        diskPolicyPanel.add(new JLabel("📦 NCQ:"));
+        diskPolicyPanel.add(ncqComboBox);
+        asignacionComboBox = new JComboBox<>(AllocationPolicy.values());
+        asignacionComboBox.setSelectedItem(fileSystem.getDisk().getAllocationPolicy());
+        asignacionComboBox.setToolTipText("Cómo se eligen los huecos para los archivos nuevos (tramos contiguos o buddy de potencias de 2)");
+        asignacionComboBox.addActionListener(e -> fileSystem.setAllocationPolicy((AllocationPolicy) asignacionComboBox.getSelectedItem()));
+        diskPolicyPanel.add(new JLabel("🧩 Asignación:"));
+        diskPolicyPanel.add(asignacionComboBox);
+        btnDesfragmentar = new JToggleButton("🧹 Desfragmentar");
+        btnDesfragmentar.setToolTipText("Junta los archivos partidos y los huecos libres, un archivo por paso y solo con la cola vacía");
+        btnDesfragmentar.addActionListener(e -> {
+            if (btnDesfragmentar.isSelected()) {
+                fileSystem.iniciarDesfragmentacion(200);
+            } else {
+                fileSystem.detenerDesfragmentacion();
+            }
+        });
+        diskPolicyPanel.add(btnDesfragmentar);
 
         JPanel bufferPolicyPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         lblBufferPolicy = new JLabel("Política Buffer: LRU");
@@ -123,13 +168,27 @@ public class FileSystemGUI extends JFrame {
         lblBufferStats = new JLabel("Hits: 0 | Misses: 0 | Hit Rate: 0.0%");
         btnLimpiarBuffer = new JButton("🗑️ Limpiar Buffer");
         btnLimpiarBuffer.addActionListener(e -> limpiarBuffer());
+        chkWriteBack = new JCheckBox("Write-back");
+        chkWriteBack.setToolTipText("Agrupa las escrituras de UPDATE y guarda cada 2 s o al llegar a 10 bloques sucios");
+        chkWriteBack.addActionListener(e -> fileSystem.setWriteBack(chkWriteBack.isSelected(), 2000, 10));
+        capacidadBufferComboBox = new JComboBox<>(IntStream.of(20, 64, 256, fileSystem.getDisk().getTotalBlocks())
+                .distinct().sorted().boxed().toArray(Integer[]::new));
+        capacidadBufferComboBox.setToolTipText("Bloques que caben en el buffer (desde 256 se reparte en segmentos para varios hilos)");
+        capacidadBufferComboBox.addActionListener(e -> cambiarCapacidadBuffer());
+        chkFueraDelHeap = new JCheckBox("Fuera del heap");
+        chkFueraDelHeap.setToolTipText("Guarda el contenido de los bloques en memoria directa (slab) en vez del heap");
+        chkFueraDelHeap.addActionListener(e -> cambiarCapacidadBuffer());
         
         bufferPolicyPanel.add(new JLabel("💾 Buffer:"));
         bufferPolicyPanel.add(cachePolicyComboBox);
         bufferPolicyPanel.add(lblBufferPolicy);
+        bufferPolicyPanel.add(new JLabel("Capacidad:"));
+        bufferPolicyPanel.add(capacidadBufferComboBox);
+        bufferPolicyPanel.add(chkFueraDelHeap);
         bufferPolicyPanel.add(Box.createHorizontalStrut(10));
         bufferPolicyPanel.add(lblBufferStats);
         bufferPolicyPanel.add(btnLimpiarBuffer);
+        bufferPolicyPanel.add(chkWriteBack);
 
         policyPanel.add(diskPolicyPanel);
         policyPanel.add(bufferPolicyPanel);
@@ -181,13 +240,14 @@ public class FileSystemGUI extends JFrame {
         rightPanel.add(bufferPanel);
 
         // PANEL INFERIOR (Botones)
-        JPanel buttonPanel = new JPanel(new GridLayout(2, 5, 8, 8));
+        JPanel buttonPanel = new JPanel(new GridLayout(2, 6, 8, 8));
         buttonPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
         btnCrearArchivo = new JButton("📁 Crear Archivo");
         btnCrearDirectorio = new JButton("📂 Crear Directorio");
         btnEliminarArchivo = new JButton("❌ Eliminar");
         btnActualizarArchivo = new JButton("✏️ Actualizar");
+        btnLeerArchivo = new JButton("📖 Leer");
         btnRestaurarArchivo = new JButton("🔄 Restaurar");
         btnMoverArchivo = new JButton("➡️ Mover");
         btnGuardar = new JButton("💾 Guardar");
@@ -200,6 +260,7 @@ public class FileSystemGUI extends JFrame {
         btnCrearDirectorio.addActionListener(e -> crearDirectorio());
         btnEliminarArchivo.addActionListener(e -> eliminarArchivo());
         btnActualizarArchivo.addActionListener(e -> actualizarArchivo());
+        btnLeerArchivo.addActionListener(e -> leerArchivo());
         btnRestaurarArchivo.addActionListener(e -> restaurarArchivo());
         btnMoverArchivo.addActionListener(e -> moverArchivo());
         btnGuardar.addActionListener(e -> guardarSistema());
@@ -220,6 +281,7 @@ public class FileSystemGUI extends JFrame {
         buttonPanel.add(btnCrearDirectorio);
         buttonPanel.add(btnEliminarArchivo);
         buttonPanel.add(btnActualizarArchivo);
+        buttonPanel.add(btnLeerArchivo);
         buttonPanel.add(btnMoverArchivo);
         buttonPanel.add(btnRestaurarArchivo);
         buttonPanel.add(btnGuardar);
@@ -256,6 +318,13 @@ public class FileSystemGUI extends JFrame {
             actualizarQueueSize();
             actualizarBufferTable();
             actualizarBufferStats();
+            if (fileSystem.isDesfragmentando()) {
+                diskPanel.actualizarDisco();
+            } else if (btnDesfragmentar.isSelected()) {
+                // Terminó solo: se muestra el disco ya compactado
+                btnDesfragmentar.setSelected(false);
+                diskPanel.actualizarDisco();
+            }
         });
         processTimer.start();
     }
@@ -273,6 +342,13 @@ public class FileSystemGUI extends JFrame {
         JOptionPane.showMessageDialog(this, "✅ Política de buffer cambiada a: " + selected + "\n⚠️ El buffer ha sido limpiado.");
     }
 
+    private void cambiarCapacidadBuffer() {
+        int capacidad = (Integer) capacidadBufferComboBox.getSelectedItem();
+        fileSystem.redimensionarBuffer(capacidad, chkFueraDelHeap.isSelected());
+        actualizarBufferTable();
+        actualizarBufferStats();
+    }
+
     private void limpiarBuffer() {
         fileSystem.getBuffer().clear();
         actualizarBufferTable();
@@ -307,17 +383,17 @@ public class FileSystemGUI extends JFrame {
     private void actualizarBufferTable() {
         bufferTableModel.setRowCount(0);
         BufferCache buffer = fileSystem.getBuffer();
+        CacheBlock[] bloques = buffer.getBloques();
         
-        for (Integer blockNum : buffer.getCache().keySet()) {
-            CacheBlock block = buffer.getCache().get(blockNum);
+        for (CacheBlock block : bloques) {
             bufferTableModel.addRow(new Object[]{
-                blockNum,
+                block.getBlockNumber(),
                 block.getFileName(),
                 "Cargado"
             });
         }
         
-        int used = buffer.getSize();
+        int used = bloques.length;
         int capacity = buffer.getCapacity();
         bufferPanel.setBorder(BorderFactory.createTitledBorder(
             String.format("💾 Estado del Buffer (%d/%d bloques)", used, capacity)
@@ -325,17 +401,21 @@ public class FileSystemGUI extends JFrame {
     }
 
     private void actualizarBufferStats() {
-        BufferCache buffer = fileSystem.getBuffer();
-        lblBufferStats.setText(String.format(
+        BufferSnapshot buffer = fileSystem.getBuffer().getSnapshot();
+        String texto = String.format(
             "Hits: %d | Misses: %d | Hit Rate: %.1f%%",
             buffer.getHits(),
             buffer.getMisses(),
             buffer.getHitRate()
-        ));
+        );
+        if (buffer.isWriteBack()) {
+            texto += " | Sucios: " + buffer.getBloquesSucios();
+        }
+        lblBufferStats.setText(texto);
     }
 
     private void mostrarEstadisticas() {
-        BufferCache buffer = fileSystem.getBuffer();
+        BufferSnapshot buffer = fileSystem.getBuffer().getSnapshot();
         int totalArchivos = contarArchivosRecursivo(fileSystem.getRoot());
         int bloquesUsados = contarBloquesUsados();
         int bloquesLibres = fileSystem.getDisk().getTotalBlocks() - bloquesUsados;
@@ -348,10 +428,19 @@ public class FileSystemGUI extends JFrame {
             "   • Archivos totales: %d\n" +
             "   • Bloques usados: %d / %d\n" +
             "   • Bloques libres: %d\n" +
-            "   • Uso del disco: %.1f%%\n\n" +
+            "   • Uso del disco: %.1f%%\n%s\n" +
+            "🧹 DESFRAGMENTACIÓN:\n%s\n" +
             "⚙️ PROCESOS I/O:\n" +
             "   • En cola: %d\n" +
-            "   • Política actual: %s\n\n" +
+            "   • Política actual: %s\n" +
+            "   • Despachados por plazo vencido (DEADLINE): %d\n" +
+            "   • Fusionados en la cola: %d (anulados: %d)\n" +
+            "   • Cola justa por usuario: %s\n%s" +
+            "%s\n" +
+            "🎯 DESPLAZAMIENTO DEL CABEZAL:\n%s%s\n" +
+            "⏱️ TIEMPOS DEL DISCO (simulados):\n%s\n" +
+            "🗄️ DISCOS (%d, RAID-0):\n%s\n" +
+            "📀 ALMACÉN DE BLOQUES:\n%s\n" +
             "💾 BUFFER/CACHÉ:\n" +
             "   • Capacidad: %d bloques\n" +
             "   • En uso: %d bloques\n" +
@@ -366,8 +455,22 @@ public class FileSystemGUI extends JFrame {
             fileSystem.getDisk().getTotalBlocks(),
             bloquesLibres,
             (bloquesUsados * 100.0 / fileSystem.getDisk().getTotalBlocks()),
-            fileSystem.getProcessQueue().size(),
+            fileSystem.getResumenFragmentacion(),
+            fileSystem.getResumenDesfragmentacion(),
+            fileSystem.getProcesosEnCola(),
             fileSystem.getScheduler().getPolicy(),
+            fileSystem.getDespachosPorVencimiento(),
+            fileSystem.getFusionados(),
+            fileSystem.getAnulados(),
+            fileSystem.getProcessQueue().isColaJusta() ? "activa" : "inactiva",
+            fileSystem.getResumenClases(),
+            fileSystem.getResumenAnticipacion(),
+            fileSystem.getResumenDesplazamiento(),
+            fileSystem.getResumenNCQ(),
+            fileSystem.getResumenTiempos(),
+            fileSystem.getNumDiscos(),
+            fileSystem.getResumenDiscos(),
+            fileSystem.getResumenAlmacen(),
             buffer.getCapacity(),
             buffer.getSize(),
             buffer.getHits(),
@@ -394,16 +497,22 @@ public class FileSystemGUI extends JFrame {
     }
 
     private int contarBloquesUsados() {
-        int count = 0;
-        boolean[] blockMap = fileSystem.getDisk().getBlockMap();
-        for (boolean usado : blockMap) {
-            if (usado) count++;
+        return fileSystem.getDisk().getBloquesUsados();
+    }
+
+    private void cambiarDiscos() {
+        int numDiscos = (Integer) discosComboBox.getSelectedItem();
+        if (numDiscos == fileSystem.getNumDiscos()) {
+            return;
+        }
+        if (!fileSystem.configurarDiscos(numDiscos)) {
+            JOptionPane.showMessageDialog(this, "⚠️ Procese la cola y espere a que termine antes de cambiar la cantidad de discos.", "Cola con procesos", JOptionPane.WARNING_MESSAGE);
+            discosComboBox.setSelectedItem(fileSystem.getNumDiscos());
         }
-        return count;
     }
 
     private void procesarCola() {
-        if (fileSystem.getProcessQueue().isEmpty()) {
+        if (!fileSystem.hayProcesosPendientes()) {
             JOptionPane.showMessageDialog(this, "⚠️ No hay procesos de I/O en la cola.", "Cola vacía", JOptionPane.WARNING_MESSAGE);
             return;
         }
@@ -412,7 +521,7 @@ public class FileSystemGUI extends JFrame {
         btnProcesarCola.setText("⏳ Procesando...");
 
         Thread processThread = new Thread(() -> {
-            while (!fileSystem.getProcessQueue().isEmpty()) {
+            while (fileSystem.hayProcesosPendientes()) {
                 fileSystem.processNextIO();
                 try {
                     Thread.sleep(300);
@@ -433,11 +542,7 @@ public class FileSystemGUI extends JFrame {
 
     private void actualizarProcessTable() {
         processTableModel.setRowCount(0);
-        ListaEnlazada<IOProcess> queue = fileSystem.getProcessQueue().getQueue();
-        Nodo<IOProcess> actual = queue.getCabeza();
-        
-        while (actual != null) {
-            IOProcess p = actual.dato;
+        for (IOProcess p : fileSystem.getProcesos()) {
             processTableModel.addRow(new Object[]{
                 "P" + p.getId(),
                 p.getName(),
@@ -445,12 +550,11 @@ public class FileSystemGUI extends JFrame {
                 p.getIoRequest().getOperation().toString(),
                 p.getIoRequest().getFileName()
             });
-            actual = actual.siguiente;
         }
     }
 
     private void actualizarQueueSize() {
-        int size = fileSystem.getProcessQueue().size();
+        int size = fileSystem.getProcesosEnCola();
         lblQueueSize.setText("Procesos de I/O en cola: " + size);
     }
 
@@ -483,7 +587,9 @@ public class FileSystemGUI extends JFrame {
             return;
         }
 
-        fileSystem.createFile(path, fileName, fileSize, "Administrador");
+        if (!fileSystem.createFile(path, fileName, fileSize, "Administrador")) {
+            return;
+        }
         JOptionPane.showMessageDialog(this, "✅ Proceso de I/O creado. Use 'Procesar Cola' para ejecutar.", 
                                     "Proceso en cola", JOptionPane.INFORMATION_MESSAGE);
         actualizarInterfaz();
@@ -567,6 +673,23 @@ public class FileSystemGUI extends JFrame {
         JOptionPane.showMessageDialog(this, "✅ Proceso de actualización I/O creado.", "En cola", JOptionPane.INFORMATION_MESSAGE);
     }
 
+    private void leerArchivo() {
+        String path = JOptionPane.showInputDialog(this, "Ruta del archivo:");
+        if (path == null) return;
+        
+        String fileName = JOptionPane.showInputDialog(this, "Nombre del archivo:");
+        if (fileName == null) return;
+
+        if (!fileSystem.existeArchivo(path, fileName)) {
+            JOptionPane.showMessageDialog(this, "❌ El archivo no existe.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        fileSystem.readFile(path, fileName, isAdmin ? "Administrador" : "Usuario");
+        JOptionPane.showMessageDialog(this, "✅ Proceso de lectura I/O creado.", "En cola", JOptionPane.INFORMATION_MESSAGE);
+        actualizarInterfaz();
+    }
+
     private void restaurarArchivo() { 
         String fileName = JOptionPane.showInputDialog(this, "Nombre del archivo:");
         if (fileName == null) return;
@@ -614,6 +737,7 @@ public class FileSystemGUI extends JFrame {
     }
 
     private void guardarSistema() { 
+        fileSystem.sync();
         fileSystem.guardarEnArchivo();
         JOptionPane.showMessageDialog(this, "✅ Sistema guardado correctamente.");     
     }
@@ -647,7 +771,7 @@ public class FileSystemGUI extends JFrame {
             FileEntry file = actual.dato;
             data[i][0] = file.name;
             data[i][1] = file.size;
-            data[i][2] = file.blocks.contarElementos();
+            data[i][2] = file.contarBloques();
             i++;
             actual = actual.siguiente;
         }
@@ -674,9 +798,9 @@ public class FileSystemGUI extends JFrame {
 
     FileEntry archivo = buscarArchivoRecursivo(root, nombre);
     if (archivo != null) {
-        if (archivo.blocks.getCabeza() != null) {
-            int primerBloque = archivo.blocks.obtener(0);
-            int cantidadBloques = archivo.blocks.contarElementos();
+        if (archivo.primerBloque() >= 0) {
+            int primerBloque = archivo.primerBloque();
+            int cantidadBloques = archivo.contarBloques();
             
             // 🔧 OBTENER COLOR DEL ARCHIVO
             Color color = diskPanel.obtenerColorArchivo(archivo.name);
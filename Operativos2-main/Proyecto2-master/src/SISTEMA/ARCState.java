@@ -0,0 +1,175 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import EDD.ListaDoble;
+import EDD.NodoDoble;
+import java.util.HashMap;
+
+/**
+ * Estado de la política ARC (Adaptive Replacement Cache) del BufferCache.
+ * T1 guarda los bloques vistos una sola vez y T2 los vistos al menos dos veces.
+ * B1 y B2 son listas "fantasma": recuerdan solo el número de los bloques
+ * expulsados de T1 y T2. Un acierto en B1 indica que T1 se quedó corto y sube
+ * el objetivo p; un acierto en B2 lo baja. Así el buffer se adapta solo entre
+ * recorridos secuenciales (que pasan una vez por T1) y conjuntos calientes.
+ */
+class ARCState {
+    static final int T1 = 1;
+    static final int T2 = 2;
+
+    private int capacidad;
+    private int p; // Tamaño objetivo de T1
+    private ListaDoble<CacheBlock> t1;
+    private ListaDoble<CacheBlock> t2;
+    private ListaDoble<Integer> b1;
+    private ListaDoble<Integer> b2;
+    private HashMap<Integer, NodoDoble<Integer>> indiceB1;
+    private HashMap<Integer, NodoDoble<Integer>> indiceB2;
+    private boolean insertarEnT2; // El bloque entrante venía de un fantasma
+
+    ARCState(int capacidad) {
+        this.capacidad = capacidad;
+        this.p = 0;
+        this.t1 = new ListaDoble<>();
+        this.t2 = new ListaDoble<>();
+        this.b1 = new ListaDoble<>();
+        this.b2 = new ListaDoble<>();
+        this.indiceB1 = new HashMap<>();
+        this.indiceB2 = new HashMap<>();
+        this.insertarEnT2 = false;
+    }
+
+    // Caso I: acierto en T1 o T2, el bloque pasa al MRU de T2
+    void hit(CacheBlock block) {
+        listaDe(block).quitar(block.nodo);
+        t2.enlazarAlFinal(block.nodo);
+        block.lista = T2;
+    }
+
+    /**
+     * Casos II a IV: prepara la entrada de un bloque que no está residente.
+     * Ajusta p según los fantasmas y devuelve el bloque que debe salir del
+     * buffer, o null si todavía hay espacio.
+     */
+    CacheBlock reemplazar(int blockNumber) {
+        NodoDoble<Integer> fantasma1 = indiceB1.get(blockNumber);
+        if (fantasma1 != null) {
+            p = Math.min(capacidad, p + Math.max(b2.contarElementos() / b1.contarElementos(), 1));
+            b1.quitar(fantasma1);
+            indiceB1.remove(blockNumber);
+            insertarEnT2 = true;
+            return lleno() ? expulsar(false) : null;
+        }
+
+        NodoDoble<Integer> fantasma2 = indiceB2.get(blockNumber);
+        if (fantasma2 != null) {
+            p = Math.max(0, p - Math.max(b1.contarElementos() / b2.contarElementos(), 1));
+            b2.quitar(fantasma2);
+            indiceB2.remove(blockNumber);
+            insertarEnT2 = true;
+            return lleno() ? expulsar(true) : null;
+        }
+
+        insertarEnT2 = false;
+        int l1 = t1.contarElementos() + b1.contarElementos();
+        if (l1 >= capacidad) {
+            if (t1.contarElementos() < capacidad) {
+                olvidarLRU(b1, indiceB1);
+                return lleno() ? expulsar(false) : null;
+            }
+            // B1 vacío y T1 lleno: el LRU de T1 sale sin dejar fantasma
+            NodoDoble<CacheBlock> nodo = t1.quitarPrimero();
+            nodo.dato.nodo = null;
+            nodo.dato.lista = 0;
+            return nodo.dato;
+        }
+
+        int total = l1 + t2.contarElementos() + b2.contarElementos();
+        if (total >= capacidad) {
+            if (total >= 2 * capacidad) {
+                olvidarLRU(b2, indiceB2);
+            }
+            return lleno() ? expulsar(false) : null;
+        }
+        return null;
+    }
+
+    // Coloca en T1 (o en T2 si venía de un fantasma) el bloque preparado con reemplazar()
+    void insertar(CacheBlock block) {
+        if (insertarEnT2) {
+            block.nodo = t2.agregarAlFinal(block);
+            block.lista = T2;
+        } else {
+            block.nodo = t1.agregarAlFinal(block);
+            block.lista = T1;
+        }
+        insertarEnT2 = false;
+    }
+
+    // Quita un bloque residente sin dejar fantasma (invalidación)
+    void quitar(CacheBlock block) {
+        if (block.nodo != null) {
+            listaDe(block).quitar(block.nodo);
+            block.nodo = null;
+            block.lista = 0;
+        }
+    }
+
+    void vaciar() {
+        p = 0;
+        t1.vaciar();
+        t2.vaciar();
+        b1.vaciar();
+        b2.vaciar();
+        indiceB1.clear();
+        indiceB2.clear();
+        insertarEnT2 = false;
+    }
+
+    String describir() {
+        return String.format("T1=%d T2=%d B1=%d B2=%d p=%d",
+                t1.contarElementos(), t2.contarElementos(),
+                b1.contarElementos(), b2.contarElementos(), p);
+    }
+
+    // REPLACE(x, p): saca el LRU de T1 o de T2 hacia su lista fantasma
+    private CacheBlock expulsar(boolean enB2) {
+        int tamT1 = t1.contarElementos();
+        boolean desdeT1 = tamT1 >= 1 && (tamT1 > p || (enB2 && tamT1 == p));
+        if (t2.estaVacia()) {
+            desdeT1 = true;
+        }
+
+        NodoDoble<CacheBlock> nodo = desdeT1 ? t1.quitarPrimero() : t2.quitarPrimero();
+        if (nodo == null) {
+            return null;
+        }
+        CacheBlock victima = nodo.dato;
+        if (desdeT1) {
+            indiceB1.put(victima.getBlockNumber(), b1.agregarAlFinal(victima.getBlockNumber()));
+        } else {
+            indiceB2.put(victima.getBlockNumber(), b2.agregarAlFinal(victima.getBlockNumber()));
+        }
+        victima.nodo = null;
+        victima.lista = 0;
+        return victima;
+    }
+
+    private void olvidarLRU(ListaDoble<Integer> fantasmas, HashMap<Integer, NodoDoble<Integer>> indice) {
+        NodoDoble<Integer> nodo = fantasmas.quitarPrimero();
+        if (nodo != null) {
+            indice.remove(nodo.dato);
+        }
+    }
+
+    private boolean lleno() {
+        return t1.contarElementos() + t2.contarElementos() >= capacidad;
+    }
+
+    private ListaDoble<CacheBlock> listaDe(CacheBlock block) {
+        return block.lista == T2 ? t2 : t1;
+    }
+}
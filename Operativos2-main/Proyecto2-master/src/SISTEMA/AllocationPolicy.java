@@ -0,0 +1,12 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+public enum AllocationPolicy {
+    FIRST_FIT,
+    BEST_FIT,
+    NEXT_FIT,
+    BUDDY
+}
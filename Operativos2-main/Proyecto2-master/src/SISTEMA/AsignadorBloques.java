@@ -0,0 +1,49 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package SISTEMA;
+
+import EDD.ListaEnlazada;
+import EDD.Tramo;
+
+/**
+ * Estrategia de asignación de bloques de SimulatedDisk. Lleva su propia
+ * estructura de huecos y marca o libera los bits del mapa, que sigue siendo
+ * lo que se guarda en disk.json; por eso al cargar (o limpiar) el disco se
+ * vuelve a armar desde el mapa con reconstruir().
+ */
+interface AsignadorBloques {
+
+    // Rearma la estructura de huecos con los bloques libres del mapa
+    void reconstruir(MapaBits mapa);
+
+    /**
+     * Reserva 'bloques' bloques y los marca en el mapa. Devuelve los tramos
+     * que ocupa el archivo; la estrategia puede reservar de más (relleno),
+     * pero eso no aparece en los tramos. SimulatedDisk ya comprobó que hay
+     * bloques libres suficientes, así que no devuelve null.
+     */
+    ListaEnlazada<Tramo> reservar(int bloques);
+
+    // Libera un tramo de un archivo (y su relleno, si lo tenía); ignora los bloques ya libres
+    void liberar(int inicio, int longitud);
+
+    // Reserva 'bloques' en un solo tramo, o devuelve null (sin tocar nada) si ningún hueco alcanza
+    Tramo reservarContiguo(int bloques);
+
+    /**
+     * Reserva exactamente [inicio, inicio + longitud) si está todo libre.
+     * Devuelve false sin tocar nada si no lo está, o si la estrategia no
+     * admite rangos arbitrarios.
+     */
+    boolean tomar(int inicio, int longitud);
+
+    // Cantidad de huecos libres y tamaño del mayor
+    int getHuecos();
+
+    int getMayorHueco();
+
+    // Líneas para el diálogo de estadísticas
+    String getResumen();
+}
@@ -0,0 +1,211 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import EDD.ListaEnlazada;
+import EDD.Tramo;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * Sistema buddy: los huecos son bloques de 2^k alineados a su tamaño, en una
+ * lista libre por orden k. Un pedido de n bloques toma el primer bloque libre
+ * del menor orden con 2^k >= n, partiéndolo en mitades (buddies) si hace
+ * falta; al liberar, el bloque se une con su buddy mientras este también esté
+ * libre. Reservar y liberar cuestan O(log n) y los huecos siempre tienen
+ * tamaños fijos, a cambio de fragmentación interna: el relleno entre n y 2^k
+ * queda reservado hasta que el archivo se borra.
+ *
+ * Las listas son TreeSet para sacar un buddy del medio en O(log n) y elegir
+ * siempre la posición más baja, que deja los bloques grandes enteros.
+ */
+class AsignadorBuddy implements AsignadorBloques {
+    private TreeSet<Integer>[] listas;
+    private MapaBits mapa;
+    // Inicio de cada bloque reservado -> {orden, bloques pedidos}
+    private final HashMap<Integer, int[]> reservas = new HashMap<>();
+    private long bloquesPedidos;
+    private long bloquesReservados;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void reconstruir(MapaBits mapa) {
+        this.mapa = mapa;
+        int ordenes = 1;
+        while ((1 << ordenes) <= mapa.getTamaño()) {
+            ordenes++;
+        }
+        listas = new TreeSet[ordenes];
+        for (int k = 0; k < ordenes; k++) {
+            listas[k] = new TreeSet<>();
+        }
+        // El relleno que siga marcado en el mapa queda como usado hasta que
+        // SimulatedDisk lo libere como bloques sin archivo (al cargar o al cambiar de estrategia)
+        reservas.clear();
+        bloquesPedidos = 0;
+        bloquesReservados = 0;
+        int inicio = mapa.siguienteLibre(0);
+        while (inicio >= 0) {
+            int fin = mapa.siguienteUsado(inicio);
+            devolverRango(inicio, fin);
+            inicio = mapa.siguienteLibre(fin);
+        }
+    }
+
+    private static int ordenPara(int bloques) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(1, bloques) - 1);
+    }
+
+    // Mayor orden con un bloque libre, o -1
+    private int mayorOrdenLibre() {
+        for (int k = listas.length - 1; k >= 0; k--) {
+            if (!listas[k].isEmpty()) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Si hay un bloque libre de 2^k para el resto del archivo se usa uno solo
+     * (con relleno); si no, se usa entero el bloque libre más grande, que es
+     * menor que lo que falta, y se sigue. Nunca se pasa de los bloques libres.
+     */
+    @Override
+    public ListaEnlazada<Tramo> reservar(int bloques) {
+        ListaEnlazada<Tramo> asignados = new ListaEnlazada<>();
+        int faltan = bloques;
+        while (faltan > 0) {
+            int orden = ordenPara(faltan);
+            int k = orden;
+            while (k < listas.length && listas[k].isEmpty()) {
+                k++;
+            }
+            if (k == listas.length) {
+                orden = mayorOrdenLibre();
+                k = orden;
+            }
+            int usados = Math.min(faltan, 1 << orden);
+            asignados.agregar(reservarBloque(k, orden, usados));
+            faltan -= usados;
+        }
+        return asignados;
+    }
+
+    // Saca el primer bloque libre de orden k, lo parte hasta 'orden' y lo marca en el mapa
+    private Tramo reservarBloque(int k, int orden, int usados) {
+        int inicio = listas[k].pollFirst();
+        // Partir: la mitad de arriba vuelve a la lista del orden menor
+        while (k > orden) {
+            k--;
+            listas[k].add(inicio + (1 << k));
+        }
+        for (int b = inicio; b < inicio + (1 << orden); b++) {
+            mapa.marcar(b);
+        }
+        reservas.put(inicio, new int[]{orden, usados});
+        bloquesPedidos += usados;
+        bloquesReservados += 1 << orden;
+        return new Tramo(inicio, usados);
+    }
+
+    @Override
+    public Tramo reservarContiguo(int bloques) {
+        int orden = ordenPara(bloques);
+        for (int k = orden; k < listas.length; k++) {
+            if (!listas[k].isEmpty()) {
+                return reservarBloque(k, orden, bloques);
+            }
+        }
+        return null;
+    }
+
+    // Un rango cualquiera rompería la alineación de los bloques: el buddy no lo acepta
+    @Override
+    public boolean tomar(int inicio, int longitud) {
+        return false;
+    }
+
+    @Override
+    public void liberar(int inicio, int longitud) {
+        int[] reserva = reservas.remove(inicio);
+        if (reserva != null) {
+            bloquesPedidos -= reserva[1];
+            bloquesReservados -= 1 << reserva[0];
+            longitud = Math.max(longitud, 1 << reserva[0]);
+        }
+        // Los bloques que ya estaban libres (o fuera del disco) cortan el rango a devolver
+        int desde = -1;
+        int fin = Math.min(inicio + longitud, mapa.getTamaño());
+        for (int b = Math.max(0, inicio); b <= fin; b++) {
+            if (b < fin && mapa.liberar(b)) {
+                if (desde < 0) {
+                    desde = b;
+                }
+            } else if (desde >= 0) {
+                devolverRango(desde, b);
+                desde = -1;
+            }
+        }
+    }
+
+    // Devuelve [desde, hasta) partido en los bloques alineados más grandes posibles
+    private void devolverRango(int desde, int hasta) {
+        while (desde < hasta) {
+            int orden = desde == 0 ? listas.length - 1 : Integer.numberOfTrailingZeros(desde);
+            while ((1 << orden) > hasta - desde) {
+                orden--;
+            }
+            devolver(desde, orden);
+            desde += 1 << orden;
+        }
+    }
+
+    private void devolver(int inicio, int orden) {
+        while (orden < listas.length - 1) {
+            int buddy = inicio ^ (1 << orden);
+            if (!listas[orden].remove(buddy)) {
+                break;
+            }
+            inicio = Math.min(inicio, buddy);
+            orden++;
+        }
+        listas[orden].add(inicio);
+    }
+
+    @Override
+    public int getHuecos() {
+        int huecos = 0;
+        for (TreeSet<Integer> lista : listas) {
+            huecos += lista.size();
+        }
+        return huecos;
+    }
+
+    @Override
+    public int getMayorHueco() {
+        int mayor = mayorOrdenLibre();
+        return mayor < 0 ? 0 : 1 << mayor;
+    }
+
+    @Override
+    public String getResumen() {
+        int totalLibres = mapa.getLibres();
+        int mayor = mayorOrdenLibre();
+        StringBuilder porOrden = new StringBuilder();
+        for (int k = 0; k < listas.length; k++) {
+            if (!listas[k].isEmpty()) {
+                porOrden.append(porOrden.length() == 0 ? "" : ", ").append(listas[k].size()).append("×").append(1 << k);
+            }
+        }
+        return String.format("   • Asignación: BUDDY | %d bloques libres (%s)%n"
+                + "   • Fragmentación interna: %d de %d bloques reservados son relleno (%.1f%%)%n"
+                + "   • Fragmentación externa: %.1f%%%n",
+                totalLibres, porOrden.length() == 0 ? "ninguno" : porOrden,
+                bloquesReservados - bloquesPedidos, bloquesReservados,
+                bloquesReservados == 0 ? 0.0 : (double) (bloquesReservados - bloquesPedidos) / bloquesReservados * 100,
+                totalLibres == 0 || mayor < 0 ? 0.0 : (1 - (double) (1 << mayor) / totalLibres) * 100);
+    }
+}
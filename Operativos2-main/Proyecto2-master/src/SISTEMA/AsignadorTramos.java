@@ -0,0 +1,116 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import EDD.ListaEnlazada;
+import EDD.Tramo;
+
+/**
+ * Asignación por tramos contiguos con first-fit, best-fit o next-fit sobre
+ * el árbol de tramos libres. Si ningún hueco alcanza usa entero el más
+ * grande y sigue con lo que falta, así el archivo queda en la menor
+ * cantidad de tramos posible. No reserva de más.
+ */
+class AsignadorTramos implements AsignadorBloques {
+    private final TramosLibres libres = new TramosLibres();
+    private final AllocationPolicy politica;
+    private MapaBits mapa;
+    private int cursor;                // NEXT_FIT: la búsqueda sigue donde terminó la anterior
+
+    AsignadorTramos(AllocationPolicy politica) {
+        this.politica = politica;
+    }
+
+    @Override
+    public void reconstruir(MapaBits mapa) {
+        this.mapa = mapa;
+        libres.reconstruir(mapa);
+        if (cursor >= mapa.getTamaño()) {
+            cursor = 0;
+        }
+    }
+
+    @Override
+    public ListaEnlazada<Tramo> reservar(int bloques) {
+        ListaEnlazada<Tramo> asignados = new ListaEnlazada<>();
+        int faltan = bloques;
+        while (faltan > 0) {
+            int inicio = libres.buscar(politica, faltan, cursor);
+            int longitud = faltan;
+            if (inicio < 0) {
+                inicio = libres.getInicioDelMayor();
+                longitud = libres.getMayor();
+            }
+            libres.tomar(inicio, longitud);
+            for (int b = inicio; b < inicio + longitud; b++) {
+                mapa.marcar(b);
+            }
+            asignados.agregar(new Tramo(inicio, longitud));
+            faltan -= longitud;
+            cursor = inicio + longitud < mapa.getTamaño() ? inicio + longitud : 0;
+        }
+        return asignados;
+    }
+
+    @Override
+    public Tramo reservarContiguo(int bloques) {
+        // Best-fit: el archivo ocupa el hueco más justo y los grandes quedan enteros
+        int inicio = libres.buscar(AllocationPolicy.BEST_FIT, bloques, 0);
+        if (inicio < 0) {
+            return null;
+        }
+        tomar(inicio, bloques);
+        return new Tramo(inicio, bloques);
+    }
+
+    @Override
+    public boolean tomar(int inicio, int longitud) {
+        if (!libres.estaLibre(inicio, longitud)) {
+            return false;
+        }
+        libres.tomar(inicio, longitud);
+        for (int b = inicio; b < inicio + longitud; b++) {
+            mapa.marcar(b);
+        }
+        return true;
+    }
+
+    @Override
+    public void liberar(int inicio, int longitud) {
+        // Los bloques que ya estaban libres (o fuera del disco) cortan el tramo a devolver
+        int desde = -1;
+        int fin = Math.min(inicio + longitud, mapa.getTamaño());
+        for (int b = Math.max(0, inicio); b <= fin; b++) {
+            if (b < fin && mapa.liberar(b)) {
+                if (desde < 0) {
+                    desde = b;
+                }
+            } else if (desde >= 0) {
+                libres.devolver(desde, b - desde);
+                desde = -1;
+            }
+        }
+    }
+
+    @Override
+    public int getHuecos() {
+        return libres.getCantidad();
+    }
+
+    @Override
+    public int getMayorHueco() {
+        return libres.getMayor();
+    }
+
+    // Huecos libres: cuántos hay, el mayor, y qué parte de lo libre no cabe en el mayor
+    @Override
+    public String getResumen() {
+        int totalLibres = mapa.getLibres();
+        return String.format("   • Asignación: %s | %d bloques libres en %d tramos, el mayor de %d%n"
+                + "   • Fragmentación externa: %.1f%%%n",
+                politica, totalLibres, libres.getCantidad(), libres.getMayor(),
+                totalLibres == 0 ? 0.0 : (1 - (double) libres.getMayor() / totalLibres) * 100);
+    }
+}
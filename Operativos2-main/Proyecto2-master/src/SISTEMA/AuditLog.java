@@ -16,7 +16,7 @@ import java.time.format.DateTimeFormatter;
 public class AuditLog {
     private static final String LOG_FILE = "audit_log.txt";
 
-    public static void registrarAccion(String usuario, String accion) {
+    public static synchronized void registrarAccion(String usuario, String accion) {
         String logEntry = String.format("[%s] [%s] %s%n",
                 LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), usuario, accion);
 
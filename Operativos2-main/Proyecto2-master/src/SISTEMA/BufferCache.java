@@ -4,167 +4,548 @@
  */
 package SISTEMA;
 
-import EDD.ListaEnlazada;
-import EDD.Nodo;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
+/**
+ * Buffer de bloques compartido por el hilo que procesa la cola de I/O y el
+ * Timer de la interfaz. La capacidad se reparte en segmentos con candado
+ * propio (ver CacheSegment); con un solo segmento el comportamiento de cada
+ * política es exactamente el de siempre. Los hits/misses usan LongAdder para
+ * que contar no obligue a tomar ningún candado.
+ *
+ * En modo write-back las escrituras solo marcan el bloque como sucio; un
+ * WriteBackFlusher las junta y las entrega al escritor en un solo lote por
+ * intervalo, o antes si se alcanza la marca alta. sync() fuerza la escritura.
+ *
+ * precargar() carga bloques por adelantado (read-ahead); ReadAhead lleva la
+ * cuenta de cuántos se aprovecharon y ajusta el tamaño de la ventana.
+ *
+ * Con 'fueraDelHeap' el contenido de los bloques se guarda en un SlabStorage
+ * (memoria directa reservada una sola vez) y cada CacheBlock queda como un
+ * identificador liviano; la ranura se libera al expulsar, invalidar o
+ * reemplazar el bloque.
+ *
+ * Los fallos cargan el contenido real del bloque desde el 'lector' (el
+ * almacén mapeado de SimulatedDisk), copiándolo una sola vez del mapeo al
+ * buffer (o a su ranura del slab). Sin lector los bloques entran en ceros.
+ *
+ * El nombre de archivo de cada bloque es su ruta completa; IndiceArchivos
+ * guarda qué bloques de cada ruta están residentes, para invalidar un
+ * archivo o un directorio entero sin recorrer sus listas de bloques.
+ */
 public class BufferCache {
+    public static final int TAMAÑO_BLOQUE = 1024;
+
     private int capacity;
-    private HashMap<Integer, CacheBlock> cache;
-    private ListaEnlazada<Integer> accessOrder; // Para LRU
-    private HashMap<Integer, Integer> accessCount; // Para LFU
-    private CachePolicy policy;
-    private int hits;
-    private int misses;
+    private CacheSegment[] segmentos;
+    private volatile CachePolicy policy;
+    private LongAdder hits;
+    private LongAdder misses;
+
+    // Write-back: bloques sucios pendientes (residentes o ya expulsados), uno por número de bloque
+    private ConcurrentHashMap<Integer, CacheBlock> sucios;
+    private volatile Consumer<CacheBlock[]> escritor;
+    // Lo toma sync() mientras saca y escribe un lote, y el desfragmentador mientras mueve bloques
+    private final Object candadoEscritura = new Object();
+    private volatile IntFunction<ByteBuffer> lector;
+    private WriteBackFlusher flusher;
+    private int marcaAlta;
+    private LongAdder expulsionesSucias;
+    private LongAdder escriturasDisco;
+    private LongAdder bloquesEscritos;
+
+    private ReadAhead readAhead;
+    private SlabStorage slab; // null = contenido en el heap
+    private IndiceArchivos indice;
 
     public BufferCache(int capacity, CachePolicy policy) {
+        this(capacity, policy, 1);
+    }
+
+    public BufferCache(int capacity, CachePolicy policy, int numSegmentos) {
+        this(capacity, policy, numSegmentos, false);
+    }
+
+    public BufferCache(int capacity, CachePolicy policy, int numSegmentos, boolean fueraDelHeap) {
+        int total = Math.max(1, Math.min(numSegmentos, capacity));
         this.capacity = capacity;
-        this.cache = new HashMap<>();
-        this.accessOrder = new ListaEnlazada<>();
-        this.accessCount = new HashMap<>();
         this.policy = policy;
-        this.hits = 0;
-        this.misses = 0;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.sucios = new ConcurrentHashMap<>();
+        this.expulsionesSucias = new LongAdder();
+        this.escriturasDisco = new LongAdder();
+        this.bloquesEscritos = new LongAdder();
+        this.readAhead = new ReadAhead(capacity);
+        this.indice = new IndiceArchivos();
+        this.segmentos = new CacheSegment[total];
+        for (int i = 0; i < total; i++) {
+            int capacidadSegmento = capacity / total + (i < capacity % total ? 1 : 0);
+            segmentos[i] = new CacheSegment(this, capacidadSegmento, policy);
+        }
+        if (fueraDelHeap) {
+            // Una ranura extra por segmento: W-TinyLFU admite antes de elegir la víctima
+            this.slab = new SlabStorage(capacity + total, TAMAÑO_BLOQUE);
+        }
     }
 
     public CacheBlock get(int blockNumber) {
-        if (cache.containsKey(blockNumber)) {
-            hits++;
-            updateAccess(blockNumber);
-            return cache.get(blockNumber);
+        CacheBlock block = segmentoDe(blockNumber).get(blockNumber);
+        if (block != null) {
+            hits.increment();
+        } else {
+            misses.increment();
         }
-        misses++;
-        return null;
+        return block;
+    }
+
+    public CacheBlock put(int blockNumber, String fileName, byte[] data) {
+        CacheBlock block = crearBloque(blockNumber, fileName, data);
+        segmentoDe(blockNumber).put(block);
+        return block;
+    }
+
+    // Carga un bloque leído del disco; en modo slab el contenido va directo a su ranura, sin pasar por el heap
+    public CacheBlock cargar(int blockNumber, String fileName) {
+        CacheBlock block = leerDelAlmacen(blockNumber, fileName);
+        segmentoDe(blockNumber).put(block);
+        return block;
     }
 
-    public void put(int blockNumber, String fileName, byte[] data) {
-        if (cache.size() >= capacity && !cache.containsKey(blockNumber)) {
-            evict();
+    // De dónde se leen los bloques en los fallos: una vista del bloque, o null si no tiene contenido
+    public void setLector(IntFunction<ByteBuffer> lector) {
+        this.lector = lector;
+    }
+
+    private CacheBlock leerDelAlmacen(int blockNumber, String fileName) {
+        IntFunction<ByteBuffer> fuente = lector;
+        ByteBuffer contenido = fuente == null ? null : fuente.apply(blockNumber);
+        if (contenido == null) {
+            return crearBloque(blockNumber, fileName, slab == null ? new byte[TAMAÑO_BLOQUE] : null);
+        }
+        if (slab != null) {
+            int ranura = slab.reservar();
+            if (ranura >= 0) {
+                CacheBlock block = new CacheBlock(blockNumber, fileName, null);
+                block.alojarEnSlab(slab, ranura, contenido);
+                return block;
+            }
         }
+        byte[] datos = new byte[contenido.remaining()];
+        contenido.get(contenido.position(), datos);
+        return new CacheBlock(blockNumber, fileName, datos);
+    }
 
+    private CacheBlock crearBloque(int blockNumber, String fileName, byte[] data) {
         CacheBlock block = new CacheBlock(blockNumber, fileName, data);
-        cache.put(blockNumber, block);
-        updateAccess(blockNumber);
-    }
-
-    private void updateAccess(int blockNumber) {
-        switch (policy) {
-            case LRU:
-                updateLRU(blockNumber);
-                break;
-            case LFU:
-                updateLFU(blockNumber);
-                break;
-            case FIFO:
-                updateFIFO(blockNumber);
-                break;
-        }
-    }
-
-    private void updateLRU(int blockNumber) {
-        // Eliminar si ya existe
-        Nodo<Integer> actual = accessOrder.getCabeza();
-        while (actual != null) {
-            if (actual.dato.equals(blockNumber)) {
-                accessOrder.eliminar(blockNumber);
-                break;
+        if (slab != null) {
+            int ranura = slab.reservar();
+            if (ranura >= 0) {
+                block.alojarEnSlab(slab, ranura);
+            } else if (data == null) {
+                // Sin ranuras libres (no debería pasar): el bloque queda en el heap
+                block.setData(new byte[TAMAÑO_BLOQUE]);
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Read-ahead: carga en un solo lote los bloques indicados que no estén ya
+     * en el buffer, sin contarlos como hits ni misses. Devuelve cuántos cargó.
+     */
+    public int precargar(int[] bloques, String fileName) {
+        int cargados = 0;
+        for (int blockNumber : bloques) {
+            CacheSegment segmento = segmentoDe(blockNumber);
+            if (segmento.contiene(blockNumber)) {
+                continue;
+            }
+            CacheBlock block = leerDelAlmacen(blockNumber, fileName);
+            block.precargado = true;
+            segmento.put(block);
+            cargados++;
+        }
+        readAhead.registrarPrecarga(cargados);
+        return cargados;
+    }
+
+    // Cantidad de bloques que conviene precargar ahora
+    public int getVentanaReadAhead() {
+        return readAhead.getVentana();
+    }
+
+    // Llamado por los segmentos (con su candado tomado) cuando se pide un bloque precargado
+    void alAprovecharPrecarga() {
+        readAhead.aprovechado();
+    }
+
+    // Saca un bloque del buffer manteniendo consistentes los metadatos de la política.
+    // Si tenía una escritura pendiente, se descarta (su archivo ya no existe).
+    public void invalidar(int blockNumber) {
+        CacheBlock quitado = segmentoDe(blockNumber).invalidar(blockNumber);
+        if (quitado != null && quitado.precargado) {
+            readAhead.desperdiciado();
+        }
+        sucios.remove(blockNumber);
+        alDescartar(quitado);
+    }
+
+    // Invalida todos los bloques residentes del archivo; cuesta lo que sus bloques en el buffer
+    public int invalidarArchivo(String ruta) {
+        return invalidarBloques(indice.sacarArchivo(ruta), ruta, false);
+    }
+
+    // Invalida los bloques de todos los archivos cuya ruta empieza con 'prefijo' (un directorio)
+    public int invalidarPrefijo(String prefijo) {
+        return invalidarBloques(indice.sacarPrefijo(prefijo), prefijo, true);
+    }
+
+    private int invalidarBloques(int[] bloques, String ruta, boolean esPrefijo) {
+        int quitados = 0;
+        for (int blockNumber : bloques) {
+            CacheBlock quitado = segmentoDe(blockNumber).invalidarDe(blockNumber, ruta, esPrefijo);
+            if (quitado == null) {
+                continue;
             }
-            actual = actual.siguiente;
+            if (quitado.precargado) {
+                readAhead.desperdiciado();
+            }
+            sucios.remove(blockNumber, quitado);
+            alDescartar(quitado);
+            quitados++;
+        }
+        return quitados;
+    }
+
+    /**
+     * Al mover un archivo sus bloques no cambian: solo se actualiza la ruta
+     * de los residentes, que conservan su lugar en la política y sus
+     * escrituras pendientes. Los ya expulsados que esperan su escritura
+     * también pasan a la ruta nueva: el write-back descarta los bloques cuya
+     * ruta ya no es la de su archivo.
+     */
+    public int renombrarArchivo(String rutaAnterior, String rutaNueva) {
+        int renombrados = 0;
+        for (int blockNumber : indice.sacarArchivo(rutaAnterior)) {
+            if (segmentoDe(blockNumber).renombrar(blockNumber, rutaAnterior, rutaNueva)) {
+                renombrados++;
+            }
+        }
+        for (CacheBlock pendiente : sucios.values()) {
+            synchronized (pendiente) {
+                if (rutaAnterior.equals(pendiente.getFileName())) {
+                    pendiente.renombrar(rutaNueva);
+                }
+            }
+        }
+        return renombrados;
+    }
+
+    /**
+     * El desfragmentador movió el bloque: el residente pasa al número nuevo
+     * con su contenido y, si tenía una escritura pendiente, la conserva.
+     * Entra como recién insertado en la política. Devuelve false si no estaba.
+     */
+    public boolean reubicar(int viejo, int nuevo) {
+        CacheBlock quitado = segmentoDe(viejo).invalidar(viejo);
+        if (quitado == null) {
+            // Ya expulsado pero sin escribir: la escritura pendiente pasa al lugar nuevo
+            CacheBlock pendiente = sucios.remove(viejo);
+            if (pendiente != null) {
+                CacheBlock movido = new CacheBlock(nuevo, pendiente.getFileName(), pendiente.getData());
+                movido.setDirty(true);
+                sucios.put(nuevo, movido);
+            }
+            return false;
+        }
+        boolean sucio;
+        byte[] datos;
+        synchronized (quitado) {
+            sucio = sucios.remove(viejo, quitado);
+            datos = quitado.getData();
+        }
+        alDescartar(quitado);
+        CacheBlock movido = crearBloque(nuevo, quitado.getFileName(), datos);
+        movido.precargado = quitado.precargado;
+        segmentoDe(nuevo).put(movido);
+        if (sucio) {
+            marcarSucio(movido);
+        }
+        return true;
+    }
+
+    // Archivos con al menos un bloque en el buffer
+    public int getArchivosEnBuffer() {
+        return indice.archivos();
+    }
+
+    /**
+     * Activa el modo write-back. 'escritor' recibe cada lote de bloques sucios;
+     * el lote se escribe cada 'intervaloMs' o cuando hay 'marcaAlta' sucios.
+     */
+    public synchronized void activarWriteBack(long intervaloMs, int marcaAlta, Consumer<CacheBlock[]> escritor) {
+        desactivarWriteBack();
+        this.escritor = escritor;
+        this.marcaAlta = Math.max(1, marcaAlta);
+        this.flusher = new WriteBackFlusher(this, intervaloMs);
+        flusher.iniciar();
+    }
+
+    // Vuelve a write-through, escribiendo antes lo que quede pendiente
+    public synchronized void desactivarWriteBack() {
+        if (flusher == null) {
+            return;
         }
-        // Agregar al final (más recientemente usado)
-        accessOrder.agregar(blockNumber);
+        flusher.detener();
+        sync();
+        flusher = null;
+        escritor = null;
+    }
+
+    public boolean isWriteBack() {
+        return escritor != null;
     }
 
-    private void updateLFU(int blockNumber) {
-        int newCount = accessCount.getOrDefault(blockNumber, 0) + 1;
-        accessCount.put(blockNumber, newCount);
-        System.out.println("💾 Buffer LFU: bloque " + blockNumber + " ahora tiene frecuencia " + newCount);
+    public long getIntervaloWriteBack() {
+        WriteBackFlusher actual = flusher;
+        return actual == null ? 0 : actual.getIntervaloMs();
     }
 
-    private void updateFIFO(int blockNumber) {
-        if (!accessOrder.contiene(blockNumber)) {
-            accessOrder.agregar(blockNumber);
+    public int getMarcaAlta() {
+        return marcaAlta;
+    }
+
+    // En write-back deja el bloque pendiente de escritura; en write-through no hace nada
+    public void marcarSucio(CacheBlock block) {
+        if (escritor == null) {
+            return;
+        }
+        synchronized (block) {
+            block.setDirty(true);
+            sucios.put(block.getBlockNumber(), block);
+        }
+        WriteBackFlusher actual = flusher;
+        if (actual != null && sucios.size() >= marcaAlta) {
+            actual.avisar();
         }
     }
 
-    private void evict() {
-        Integer blockToEvict = null;
+    /**
+     * Punto de durabilidad: entrega al escritor, en un solo lote, todos los
+     * bloques sucios pendientes. Devuelve cuántos se escribieron.
+     * No toma el candado del buffer mientras escribe: el escritor puede
+     * necesitar el del FileSystem, y así no hay orden de candados que invertir.
+     * Sí toma 'candadoEscritura' (siempre antes que el del FileSystem), para
+     * que el desfragmentador no mueva un bloque que ya salió en el lote y
+     * todavía no se escribió.
+     */
+    public int sync() {
+        Consumer<CacheBlock[]> destino = escritor;
+        if (destino == null || sucios.isEmpty()) {
+            return 0;
+        }
+        synchronized (candadoEscritura) {
+            return escribirLote(destino);
+        }
+    }
 
-        switch (policy) {
-            case FIFO:
-            case LRU:
-                blockToEvict = accessOrder.obtener(0);
-                accessOrder.eliminar(blockToEvict);
-                System.out.println("💾 Buffer " + policy + " evict: bloque " + blockToEvict);
-                break;
-            case LFU:
-                blockToEvict = findLFU();
-                if (blockToEvict != null) {
-                    int count = accessCount.getOrDefault(blockToEvict, 0);
-                    System.out.println("💾 Buffer LFU evict: bloque " + blockToEvict + " (frecuencia: " + count + ")");
-                    accessCount.remove(blockToEvict);
+    private int escribirLote(Consumer<CacheBlock[]> destino) {
+        CacheBlock[] pendientes = sucios.values().toArray(new CacheBlock[0]);
+        CacheBlock[] lote = new CacheBlock[pendientes.length];
+        int total = 0;
+        for (CacheBlock block : pendientes) {
+            // Solo se lleva el bloque quien logra sacarlo; si se volvió a
+            // modificar, la versión nueva queda para el próximo lote
+            synchronized (block) {
+                if (sucios.remove(block.getBlockNumber(), block)) {
+                    block.setDirty(false);
+                    lote[total++] = block;
                 }
-                break;
+            }
+        }
+        if (total == 0) {
+            return 0;
         }
+        destino.accept(Arrays.copyOf(lote, total));
+        escriturasDisco.increment();
+        bloquesEscritos.add(total);
+        return total;
+    }
 
-        if (blockToEvict != null) {
-            cache.remove(blockToEvict);
+    // Ejecuta 'accion' sin que ningún lote de write-back esté a medio escribir
+    public boolean sinEscrituras(BooleanSupplier accion) {
+        synchronized (candadoEscritura) {
+            return accion.getAsBoolean();
         }
     }
 
-    private Integer findLFU() {
-        Integer minBlock = null;
-        int minCount = Integer.MAX_VALUE;
+    // Llamado por los segmentos (con su candado tomado) cuando un bloque queda residente
+    void alInsertar(CacheBlock block) {
+        indice.agregar(block.getFileName(), block.getBlockNumber());
+    }
 
-        for (Integer block : cache.keySet()) {
-            int count = accessCount.getOrDefault(block, 0);
-            if (count < minCount) {
-                minCount = count;
-                minBlock = block;
+    // Llamado por los segmentos (con su candado tomado) al expulsar un bloque
+    void alExpulsar(CacheBlock victima) {
+        if (victima != null) {
+            indice.quitar(victima.getFileName(), victima.getBlockNumber());
+        }
+        if (victima != null && victima.precargado) {
+            // Se precargó y salió sin que nadie lo pidiera
+            readAhead.desperdiciado();
+        }
+        if (victima != null && victima.isDirty()) {
+            // El bloque sigue en 'sucios', así que su escritura queda programada
+            expulsionesSucias.increment();
+            WriteBackFlusher actual = flusher;
+            if (actual != null) {
+                actual.avisar();
+            }
+        }
+        if (victima != null && slab != null) {
+            // Si falta escribirlo, el contenido se pasa al heap antes de soltar la ranura
+            int ranura = victima.liberarSlab(victima.isDirty());
+            if (ranura >= 0) {
+                slab.liberar(ranura);
+            }
+        }
+    }
+
+    // Llamado cuando un bloque sale del buffer sin ser expulsado (reemplazado, invalidado o vaciado)
+    void alDescartar(CacheBlock block) {
+        if (block != null) {
+            indice.quitar(block.getFileName(), block.getBlockNumber());
+        }
+        if (block != null && slab != null) {
+            int ranura = block.liberarSlab(block.isDirty());
+            if (ranura >= 0) {
+                slab.liberar(ranura);
             }
         }
-        return minBlock;
+    }
+
+    public int getBloquesSucios() {
+        return sucios.size();
+    }
+
+    public long getEscriturasDisco() {
+        return escriturasDisco.sum();
+    }
+
+    public long getBloquesEscritos() {
+        return bloquesEscritos.sum();
+    }
+
+    public long getExpulsionesSucias() {
+        return expulsionesSucias.sum();
     }
 
     public void clear() {
-        cache.clear();
-        accessOrder = new ListaEnlazada<>();
-        accessCount.clear();
-        hits = 0;
-        misses = 0;
+        // Lo sucio se escribe antes de vaciar para no perder cambios
+        sync();
+        for (CacheSegment segmento : segmentos) {
+            segmento.vaciar(policy);
+        }
+        hits.reset();
+        misses.reset();
+        readAhead.reiniciar();
     }
 
     public int getSize() {
-        return cache.size();
+        int total = 0;
+        for (CacheSegment segmento : segmentos) {
+            total += segmento.tamaño();
+        }
+        return total;
     }
 
     public int getCapacity() {
         return capacity;
     }
 
+    public int getSegmentos() {
+        return segmentos.length;
+    }
+
+    public boolean isFueraDelHeap() {
+        return slab != null;
+    }
+
+    // Memoria directa reservada para el contenido de los bloques (0 si vive en el heap)
+    public long getBytesFueraDelHeap() {
+        return slab == null ? 0 : slab.getBytesReservados();
+    }
+
     public int getHits() {
-        return hits;
+        return hits.intValue();
     }
 
     public int getMisses() {
-        return misses;
+        return misses.intValue();
     }
 
     public double getHitRate() {
-        int total = hits + misses;
-        return total == 0 ? 0 : (double) hits / total * 100;
+        return calcularHitRate(hits.sum(), misses.sum());
     }
 
     public CachePolicy getPolicy() {
         return policy;
     }
 
+    // Estado interno de la política, para mostrarlo en las estadísticas
+    public String getDetallePolitica() {
+        if (segmentos.length == 1) {
+            return segmentos[0].describir();
+        }
+        String detalle = segmentos[0].describir();
+        return detalle.isEmpty() ? "" : "Segmento 0 de " + segmentos.length + ": " + detalle;
+    }
+
     public void setPolicy(CachePolicy policy) {
         this.policy = policy;
         clear();
     }
 
-    public HashMap<Integer, CacheBlock> getCache() {
-        return cache;
+    // Copia de los bloques residentes (para mostrarlos en la interfaz)
+    public CacheBlock[] getBloques() {
+        CacheBlock[] bloques = new CacheBlock[capacity];
+        int total = 0;
+        for (CacheSegment segmento : segmentos) {
+            total = segmento.copiarBloques(bloques, total);
+        }
+        return Arrays.copyOf(bloques, total);
+    }
+
+    /**
+     * Lectura de las estadísticas en un solo paso, para que la interfaz
+     * muestre hits, misses y tasa calculados sobre los mismos valores.
+     */
+    public BufferSnapshot getSnapshot() {
+        long h = hits.sum();
+        long m = misses.sum();
+        return new BufferSnapshot(policy, capacity, getSize(), h, m, calcularHitRate(h, m), getDetallePolitica(),
+                isWriteBack(), sucios.size(), escriturasDisco.sum(), bloquesEscritos.sum(),
+                readAhead.getVentana(), readAhead.getPrecargados(), readAhead.getAprovechados(),
+                readAhead.getDesperdiciados());
+    }
+
+    private static double calcularHitRate(long h, long m) {
+        long total = h + m;
+        return total == 0 ? 0 : (double) h / total * 100;
+    }
+
+    private CacheSegment segmentoDe(int blockNumber) {
+        if (segmentos.length == 1) {
+            return segmentos[0];
+        }
+        int h = blockNumber * 0x9E3779B9;
+        h ^= h >>> 16;
+        return segmentos[(h & 0x7fffffff) % segmentos.length];
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+/**
+ * Foto inmutable de las estadísticas del BufferCache en un instante.
+ */
+public class BufferSnapshot {
+    private final CachePolicy policy;
+    private final int capacity;
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final double hitRate;
+    private final String detallePolitica;
+    private final boolean writeBack;
+    private final int bloquesSucios;
+    private final long escriturasDisco;
+    private final long bloquesEscritos;
+    private final int ventanaReadAhead;
+    private final long precargados;
+    private final long precargasAprovechadas;
+    private final long precargasDesperdiciadas;
+
+    public BufferSnapshot(CachePolicy policy, int capacity, int size, long hits, long misses,
+                          double hitRate, String detallePolitica, boolean writeBack,
+                          int bloquesSucios, long escriturasDisco, long bloquesEscritos,
+                          int ventanaReadAhead, long precargados, long precargasAprovechadas,
+                          long precargasDesperdiciadas) {
+        this.policy = policy;
+        this.capacity = capacity;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hitRate;
+        this.detallePolitica = detallePolitica;
+        this.writeBack = writeBack;
+        this.bloquesSucios = bloquesSucios;
+        this.escriturasDisco = escriturasDisco;
+        this.bloquesEscritos = bloquesEscritos;
+        this.ventanaReadAhead = ventanaReadAhead;
+        this.precargados = precargados;
+        this.precargasAprovechadas = precargasAprovechadas;
+        this.precargasDesperdiciadas = precargasDesperdiciadas;
+    }
+
+    public CachePolicy getPolicy() {
+        return policy;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public String getDetallePolitica() {
+        return detallePolitica;
+    }
+
+    public boolean isWriteBack() {
+        return writeBack;
+    }
+
+    public int getBloquesSucios() {
+        return bloquesSucios;
+    }
+
+    public long getEscriturasDisco() {
+        return escriturasDisco;
+    }
+
+    public long getBloquesEscritos() {
+        return bloquesEscritos;
+    }
+
+    public int getVentanaReadAhead() {
+        return ventanaReadAhead;
+    }
+
+    public long getPrecargados() {
+        return precargados;
+    }
+
+    public long getPrecargasAprovechadas() {
+        return precargasAprovechadas;
+    }
+
+    public long getPrecargasDesperdiciadas() {
+        return precargasDesperdiciadas;
+    }
+}
@@ -4,11 +4,24 @@
  */
 package SISTEMA;
 
+import EDD.NodoDoble;
+import java.nio.ByteBuffer;
+
 public class CacheBlock {
     private int blockNumber;
-    private String fileName;
+    private volatile String fileName; // Ruta del archivo; es la clave del índice inverso del buffer
     private byte[] data;
     private long timestamp;
+    private volatile boolean dirty; // Modificado en el buffer y aún no escrito (write-back)
+    boolean precargado; // Traído por read-ahead y todavía no pedido (protegido por el candado del segmento)
+    // Modo slab: el contenido vive en una ranura del SlabStorage y 'data' queda en null
+    private SlabStorage slab;
+    private int ranura = -1;
+    private int longitud;
+    // Nodo del bloque en la lista de reemplazo del BufferCache (LRU/FIFO, o su cubeta en LFU)
+    NodoDoble<CacheBlock> nodo;
+    LFUBuckets.Cubeta cubeta;
+    int lista; // Lista de ARC o W-TinyLFU en la que reside
 
     public CacheBlock(int blockNumber, String fileName, byte[] data) {
         this.blockNumber = blockNumber;
@@ -25,7 +38,16 @@ public class CacheBlock {
         return fileName;
     }
 
-    public byte[] getData() {
+    // Solo lo usa el BufferCache al mover un archivo, con el candado del segmento tomado
+    void renombrar(String fileName) {
+        this.fileName = fileName;
+    }
+
+    // En modo slab devuelve una copia; null si el bloque ya salió del buffer limpio
+    public synchronized byte[] getData() {
+        if (ranura >= 0) {
+            return slab.leer(ranura, longitud);
+        }
         return data;
     }
 
@@ -33,8 +55,54 @@ public class CacheBlock {
         return timestamp;
     }
 
-    public void setData(byte[] data) {
-        this.data = data;
+    public synchronized void setData(byte[] data) {
+        if (ranura >= 0) {
+            longitud = slab.escribir(ranura, data);
+        } else {
+            this.data = data;
+        }
         this.timestamp = System.currentTimeMillis();
     }
+
+    // Pasa el contenido a una ranura del slab; desde aquí el bloque es solo un identificador
+    synchronized void alojarEnSlab(SlabStorage slab, int ranura) {
+        this.slab = slab;
+        this.ranura = ranura;
+        this.longitud = slab.escribir(ranura, data);
+        this.data = null;
+    }
+
+    // Igual, pero el contenido se copia directo desde otro buffer (el bloque mapeado del disco)
+    synchronized void alojarEnSlab(SlabStorage slab, int ranura, ByteBuffer contenido) {
+        this.slab = slab;
+        this.ranura = ranura;
+        this.longitud = slab.escribir(ranura, contenido);
+        this.data = null;
+    }
+
+    /**
+     * Suelta la ranura y la devuelve (o -1 si no tenía). Con 'conservarDatos'
+     * el contenido se copia antes al heap, para bloques sucios que siguen
+     * pendientes de escritura después de salir del buffer.
+     */
+    synchronized int liberarSlab(boolean conservarDatos) {
+        if (ranura < 0) {
+            return -1;
+        }
+        if (conservarDatos) {
+            data = slab.leer(ranura, longitud);
+        }
+        int liberada = ranura;
+        ranura = -1;
+        slab = null;
+        return liberada;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
 }
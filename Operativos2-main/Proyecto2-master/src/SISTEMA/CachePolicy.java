@@ -7,5 +7,8 @@ package SISTEMA;
 public enum CachePolicy {
     FIFO,
     LRU,
-    LFU
+    LFU,
+    ARC,
+    TINYLFU,
+    CLOCK
 }
@@ -0,0 +1,338 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import EDD.ListaDoble;
+import EDD.NodoDoble;
+import java.util.HashMap;
+
+/**
+ * Segmento del BufferCache: una porción de la capacidad con su propia
+ * estructura de reemplazo y su propio candado. Los bloques se reparten entre
+ * segmentos por número de bloque, así que hilos que tocan bloques distintos
+ * rara vez compiten por el mismo candado. Los contadores de hits/misses
+ * viven en el BufferCache, fuera del candado.
+ */
+class CacheSegment {
+    private BufferCache dueño;
+    private int capacity;
+    private CachePolicy policy;
+    private HashMap<Integer, CacheBlock> cache;
+    // Para LRU y FIFO: cabeza = próxima víctima, cola = último en entrar/usarse.
+    // Cada CacheBlock guarda su nodo, así que mover o quitar es O(1).
+    private ListaDoble<CacheBlock> accessOrder;
+    private LFUBuckets frecuencias; // Para LFU
+    private ARCState arc; // Para ARC
+    private TinyLFUState tinyLfu; // Para TINYLFU
+    private ClockRing clock; // Para CLOCK (no usa el HashMap)
+
+    CacheSegment(BufferCache dueño, int capacity, CachePolicy policy) {
+        this.dueño = dueño;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.cache = new HashMap<>();
+        this.accessOrder = new ListaDoble<>();
+        this.frecuencias = new LFUBuckets(capacity * 10);
+        this.arc = new ARCState(capacity);
+        this.tinyLfu = new TinyLFUState(capacity);
+        this.clock = new ClockRing(capacity);
+    }
+
+    // Devuelve el bloque si está residente (y registra el acceso), o null
+    synchronized CacheBlock get(int blockNumber) {
+        CacheBlock block;
+        if (policy == CachePolicy.CLOCK) {
+            // Camino sin objetos: buscar en el índice primitivo y marcar el bit
+            block = clock.buscar(blockNumber);
+        } else {
+            if (policy == CachePolicy.TINYLFU) {
+                tinyLfu.registrarAcceso(blockNumber);
+            }
+            block = cache.get(blockNumber);
+            if (block != null) {
+                updateAccess(block);
+            }
+        }
+        if (block != null && block.precargado) {
+            block.precargado = false;
+            dueño.alAprovecharPrecarga();
+        }
+        return block;
+    }
+
+    // Consulta si el bloque está residente sin contarlo como acceso
+    synchronized boolean contiene(int blockNumber) {
+        if (policy == CachePolicy.CLOCK) {
+            return clock.contiene(blockNumber);
+        }
+        return cache.containsKey(blockNumber);
+    }
+
+    synchronized void put(CacheBlock block) {
+        int blockNumber = block.getBlockNumber();
+        if (policy == CachePolicy.CLOCK) {
+            CacheBlock victima = clock.insertar(block);
+            if (victima != null && victima.getBlockNumber() == blockNumber) {
+                // Era la versión anterior del mismo bloque
+                dueño.alDescartar(victima);
+            } else if (victima != null) {
+                System.out.println("💾 Buffer CLOCK evict: bloque " + victima.getBlockNumber());
+                dueño.alExpulsar(victima);
+            }
+            dueño.alInsertar(block);
+            return;
+        }
+
+        CacheBlock anterior = cache.get(blockNumber);
+        if (anterior == null) {
+            if (policy == CachePolicy.ARC) {
+                // ARC decide la víctima según el bloque que entra (listas fantasma)
+                CacheBlock victima = arc.reemplazar(blockNumber);
+                if (victima != null && cache.get(victima.getBlockNumber()) == victima) {
+                    System.out.println("💾 Buffer ARC evict: bloque " + victima.getBlockNumber());
+                    cache.remove(victima.getBlockNumber());
+                    dueño.alExpulsar(victima);
+                }
+            } else if (policy != CachePolicy.TINYLFU) {
+                while (cache.size() >= capacity && !cache.isEmpty()) {
+                    evict();
+                }
+            }
+        }
+
+        if (anterior != null) {
+            dueño.alDescartar(anterior);
+        }
+        if (anterior != null && anterior.nodo != null) {
+            // El bloque nuevo hereda la posición del anterior en la lista
+            block.nodo = anterior.nodo;
+            block.nodo.dato = block;
+            block.cubeta = anterior.cubeta;
+            block.lista = anterior.lista;
+        }
+        cache.put(blockNumber, block);
+        dueño.alInsertar(block);
+        if (policy == CachePolicy.TINYLFU && anterior == null) {
+            // W-TinyLFU admite primero y luego decide quién sale (puede ser el mismo bloque)
+            CacheBlock victima = tinyLfu.insertar(block);
+            if (victima != null && cache.get(victima.getBlockNumber()) == victima) {
+                System.out.println("💾 Buffer TINYLFU evict: bloque " + victima.getBlockNumber());
+                cache.remove(victima.getBlockNumber());
+                dueño.alExpulsar(victima);
+            }
+            return;
+        }
+        updateAccess(block);
+    }
+
+    private void updateAccess(CacheBlock block) {
+        switch (policy) {
+            case LRU:
+                updateLRU(block);
+                break;
+            case LFU:
+                updateLFU(block);
+                break;
+            case FIFO:
+                updateFIFO(block);
+                break;
+            case ARC:
+                updateARC(block);
+                break;
+            case TINYLFU:
+                tinyLfu.hit(block);
+                break;
+        }
+    }
+
+    private void updateLRU(CacheBlock block) {
+        if (block.nodo == null) {
+            block.nodo = accessOrder.agregarAlFinal(block);
+        } else {
+            // Pasa al final (más recientemente usado) sin recorrer la lista
+            accessOrder.moverAlFinal(block.nodo);
+        }
+    }
+
+    private void updateLFU(CacheBlock block) {
+        if (block.cubeta == null) {
+            frecuencias.insertar(block);
+        } else {
+            frecuencias.incrementar(block);
+        }
+    }
+
+    private void updateARC(CacheBlock block) {
+        if (block.nodo == null) {
+            arc.insertar(block);
+        } else {
+            arc.hit(block);
+        }
+    }
+
+    private void updateFIFO(CacheBlock block) {
+        // En FIFO un hit no altera el orden de llegada
+        if (block.nodo == null) {
+            block.nodo = accessOrder.agregarAlFinal(block);
+        }
+    }
+
+    // Quita el bloque sin tratarlo como expulsión; devuelve el bloque quitado o null
+    synchronized CacheBlock invalidar(int blockNumber) {
+        if (policy == CachePolicy.CLOCK) {
+            return clock.quitar(blockNumber);
+        }
+        CacheBlock block = cache.remove(blockNumber);
+        if (block == null) {
+            return null;
+        }
+        switch (policy) {
+            case FIFO:
+            case LRU:
+                if (block.nodo != null) {
+                    accessOrder.quitar(block.nodo);
+                    block.nodo = null;
+                }
+                break;
+            case LFU:
+                frecuencias.quitar(block);
+                break;
+            case ARC:
+                arc.quitar(block);
+                break;
+            case TINYLFU:
+                tinyLfu.quitar(block);
+                break;
+        }
+        return block;
+    }
+
+    /**
+     * Invalida el bloque solo si sigue perteneciendo al archivo indicado (o,
+     * con 'esPrefijo', a alguno bajo esa ruta): entre la consulta al índice y
+     * este punto el bloque pudo salir y volver a usarse para otro archivo.
+     */
+    synchronized CacheBlock invalidarDe(int blockNumber, String ruta, boolean esPrefijo) {
+        CacheBlock block = residente(blockNumber);
+        if (block == null || block.getFileName() == null) {
+            return null;
+        }
+        boolean pertenece = esPrefijo ? block.getFileName().startsWith(ruta) : block.getFileName().equals(ruta);
+        return pertenece ? invalidar(blockNumber) : null;
+    }
+
+    // Cambia la ruta del bloque (al mover su archivo) sin tocar su posición en la política
+    synchronized boolean renombrar(int blockNumber, String rutaAnterior, String rutaNueva) {
+        CacheBlock block = residente(blockNumber);
+        if (block == null || !rutaAnterior.equals(block.getFileName())) {
+            return false;
+        }
+        block.renombrar(rutaNueva);
+        dueño.alInsertar(block);
+        return true;
+    }
+
+    private CacheBlock residente(int blockNumber) {
+        return policy == CachePolicy.CLOCK ? clock.ver(blockNumber) : cache.get(blockNumber);
+    }
+
+    private void evict() {
+        Integer blockToEvict = null;
+
+        switch (policy) {
+            case FIFO:
+            case LRU:
+                NodoDoble<CacheBlock> victima = accessOrder.quitarPrimero();
+                if (victima == null) {
+                    // Sin metadatos de orden: se libera cualquier bloque para no exceder la capacidad
+                    blockToEvict = cache.keySet().iterator().next();
+                    break;
+                }
+                victima.dato.nodo = null;
+                blockToEvict = victima.dato.getBlockNumber();
+                if (cache.get(blockToEvict) != victima.dato) {
+                    // El bloque ya había salido del mapa (p. ej. al borrar su archivo)
+                    return;
+                }
+                System.out.println("💾 Buffer " + policy + " evict: bloque " + blockToEvict);
+                break;
+            case LFU:
+                CacheBlock menosUsado = frecuencias.victima();
+                if (menosUsado == null) {
+                    blockToEvict = cache.keySet().iterator().next();
+                    break;
+                }
+                int count = frecuencias.frecuencia(menosUsado);
+                frecuencias.quitar(menosUsado);
+                blockToEvict = menosUsado.getBlockNumber();
+                if (cache.get(blockToEvict) != menosUsado) {
+                    return;
+                }
+                System.out.println("💾 Buffer LFU evict: bloque " + blockToEvict + " (frecuencia: " + count + ")");
+                break;
+        }
+
+        if (blockToEvict != null) {
+            dueño.alExpulsar(cache.remove(blockToEvict));
+        }
+    }
+
+    synchronized void vaciar(CachePolicy nuevaPolicy) {
+        if (policy == CachePolicy.CLOCK) {
+            for (int ranura = 0; ranura < clock.getCapacidad(); ranura++) {
+                dueño.alDescartar(clock.entrada(ranura));
+            }
+        } else {
+            for (CacheBlock block : cache.values()) {
+                dueño.alDescartar(block);
+            }
+        }
+        policy = nuevaPolicy;
+        cache.clear();
+        accessOrder.vaciar();
+        frecuencias.vaciar();
+        arc.vaciar();
+        tinyLfu.vaciar();
+        clock.vaciar();
+    }
+
+    synchronized int tamaño() {
+        return policy == CachePolicy.CLOCK ? clock.tamaño() : cache.size();
+    }
+
+    // Agrega los bloques residentes a 'destino' desde 'desde'; devuelve la siguiente posición libre
+    synchronized int copiarBloques(CacheBlock[] destino, int desde) {
+        int i = desde;
+        if (policy == CachePolicy.CLOCK) {
+            for (int ranura = 0; ranura < clock.getCapacidad() && i < destino.length; ranura++) {
+                CacheBlock block = clock.entrada(ranura);
+                if (block != null) {
+                    destino[i++] = block;
+                }
+            }
+        } else {
+            for (CacheBlock block : cache.values()) {
+                if (i >= destino.length) {
+                    break;
+                }
+                destino[i++] = block;
+            }
+        }
+        return i;
+    }
+
+    synchronized String describir() {
+        switch (policy) {
+            case ARC:
+                return arc.describir();
+            case TINYLFU:
+                return tinyLfu.describir();
+            case CLOCK:
+                return clock.describir();
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+/**
+ * Anillo de la política CLOCK (segunda oportunidad) del BufferCache.
+ * Los bloques residentes y sus bits de referencia viven en arreglos
+ * paralelos indexados por ranura, y el número de bloque se traduce a ranura
+ * con una tabla hash de direccionamiento abierto sobre int[]. Un acierto
+ * solo marca el bit de referencia: no mueve nodos ni crea objetos.
+ */
+class ClockRing {
+    private static final int VACIO = -1;
+
+    private int capacidad;
+    private int[] bloques;          // Número de bloque por ranura (VACIO si está libre)
+    private boolean[] referencia;   // Bit de segunda oportunidad por ranura
+    private CacheBlock[] entradas;  // Contenido por ranura
+    private int[] libres;           // Pila de ranuras libres
+    private int totalLibres;
+    private int mano;
+    private int tamaño;
+
+    // Índice bloque -> ranura (sondeo lineal)
+    private int[] tablaClaves;
+    private int[] tablaRanuras;
+    private int mascara;
+
+    ClockRing(int capacidad) {
+        this.capacidad = capacidad;
+        this.bloques = new int[capacidad];
+        this.referencia = new boolean[capacidad];
+        this.entradas = new CacheBlock[capacidad];
+        this.libres = new int[capacidad];
+
+        int tamTabla = Integer.highestOneBit(Math.max(2, capacidad * 2) - 1) << 1;
+        this.tablaClaves = new int[tamTabla];
+        this.tablaRanuras = new int[tamTabla];
+        this.mascara = tamTabla - 1;
+        vaciar();
+    }
+
+    // Devuelve el bloque residente y marca su bit de referencia, o null
+    CacheBlock buscar(int blockNumber) {
+        int ranura = ranuraDe(blockNumber);
+        if (ranura == VACIO) {
+            return null;
+        }
+        referencia[ranura] = true;
+        return entradas[ranura];
+    }
+
+    // Consulta sin marcar el bit de referencia
+    boolean contiene(int blockNumber) {
+        return ranuraDe(blockNumber) != VACIO;
+    }
+
+    // Devuelve el bloque residente sin marcar el bit de referencia, o null
+    CacheBlock ver(int blockNumber) {
+        int ranura = ranuraDe(blockNumber);
+        return ranura == VACIO ? null : entradas[ranura];
+    }
+
+    /**
+     * Coloca el bloque en el anillo. Si ya estaba, reemplaza su contenido y
+     * devuelve la versión anterior; si el anillo está lleno, la manecilla
+     * avanza limpiando bits hasta encontrar uno en falso y ese bloque sale.
+     * Devuelve el bloque que dejó el anillo, o null.
+     */
+    CacheBlock insertar(CacheBlock block) {
+        int existente = ranuraDe(block.getBlockNumber());
+        if (existente != VACIO) {
+            CacheBlock anterior = entradas[existente];
+            entradas[existente] = block;
+            referencia[existente] = true;
+            return anterior;
+        }
+
+        CacheBlock victima = null;
+        int ranura;
+        if (totalLibres > 0) {
+            ranura = libres[--totalLibres];
+            tamaño++;
+        } else {
+            while (referencia[mano]) {
+                referencia[mano] = false;
+                mano = (mano + 1) % capacidad;
+            }
+            ranura = mano;
+            mano = (mano + 1) % capacidad;
+            victima = entradas[ranura];
+            borrarDeTabla(bloques[ranura]);
+        }
+
+        bloques[ranura] = block.getBlockNumber();
+        entradas[ranura] = block;
+        referencia[ranura] = false;
+        agregarATabla(block.getBlockNumber(), ranura);
+        return victima;
+    }
+
+    CacheBlock quitar(int blockNumber) {
+        int ranura = ranuraDe(blockNumber);
+        if (ranura == VACIO) {
+            return null;
+        }
+        CacheBlock block = entradas[ranura];
+        borrarDeTabla(blockNumber);
+        bloques[ranura] = VACIO;
+        entradas[ranura] = null;
+        referencia[ranura] = false;
+        libres[totalLibres++] = ranura;
+        tamaño--;
+        return block;
+    }
+
+    int tamaño() {
+        return tamaño;
+    }
+
+    // Acceso por ranura para recorrer los residentes (puede devolver null)
+    CacheBlock entrada(int ranura) {
+        return entradas[ranura];
+    }
+
+    int getCapacidad() {
+        return capacidad;
+    }
+
+    void vaciar() {
+        for (int i = 0; i < capacidad; i++) {
+            bloques[i] = VACIO;
+            referencia[i] = false;
+            entradas[i] = null;
+            // Se apilan al revés para que las ranuras se ocupen en orden 0, 1, 2...
+            libres[i] = capacidad - 1 - i;
+        }
+        totalLibres = capacidad;
+        for (int i = 0; i < tablaClaves.length; i++) {
+            tablaClaves[i] = VACIO;
+        }
+        mano = 0;
+        tamaño = 0;
+    }
+
+    String describir() {
+        return "Manecilla=" + mano;
+    }
+
+    private int posicionInicial(int blockNumber) {
+        int h = blockNumber * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+
+    private int ranuraDe(int blockNumber) {
+        int i = posicionInicial(blockNumber);
+        while (tablaClaves[i] != VACIO) {
+            if (tablaClaves[i] == blockNumber) {
+                return tablaRanuras[i];
+            }
+            i = (i + 1) & mascara;
+        }
+        return VACIO;
+    }
+
+    private void agregarATabla(int blockNumber, int ranura) {
+        int i = posicionInicial(blockNumber);
+        while (tablaClaves[i] != VACIO) {
+            i = (i + 1) & mascara;
+        }
+        tablaClaves[i] = blockNumber;
+        tablaRanuras[i] = ranura;
+    }
+
+    // Borrado con desplazamiento hacia atrás para no dejar lápidas
+    private void borrarDeTabla(int blockNumber) {
+        int i = posicionInicial(blockNumber);
+        while (tablaClaves[i] != blockNumber) {
+            if (tablaClaves[i] == VACIO) {
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+
+        int hueco = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            if (tablaClaves[j] == VACIO) {
+                break;
+            }
+            int inicio = posicionInicial(tablaClaves[j]);
+            // La entrada j puede ocupar el hueco si su posición inicial no está en (hueco, j]
+            boolean puedeMoverse = (hueco <= j) ? (inicio <= hueco || inicio > j) : (inicio <= hueco && inicio > j);
+            if (puedeMoverse) {
+                tablaClaves[hueco] = tablaClaves[j];
+                tablaRanuras[hueco] = tablaRanuras[j];
+                hueco = j;
+            }
+        }
+        tablaClaves[hueco] = VACIO;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import EDD.ListaDoble;
+import EDD.NodoDoble;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sub-cola de la ProcessQueue para una clase de procesos (un usuario, o
+ * todos juntos si la cola justa está apagada). Tiene los mismos índices que
+ * usa el planificador: orden de llegada, posición de bloque y lecturas /
+ * escrituras para DEADLINE. El déficit y el peso los usa el reparto Deficit
+ * Round Robin de la ProcessQueue.
+ */
+class ColaUsuario {
+    private String nombre;
+    int peso;
+    long deficit;
+    NodoDoble<ColaUsuario> nodoActiva; // En el anillo de clases con procesos pendientes
+
+    private ListaDoble<IOProcess> llegada;
+    private TreeMap<Integer, ListaDoble<IOProcess>> porPosicion;
+    private ListaDoble<IOProcess> lecturas;
+    private ListaDoble<IOProcess> escrituras;
+
+    // Estadísticas de los despachados
+    private long despachados;
+    private long esperaTotalMs;
+
+    ColaUsuario(String nombre, int peso) {
+        this.nombre = nombre;
+        this.peso = peso;
+        this.llegada = new ListaDoble<>();
+        this.porPosicion = new TreeMap<>();
+        this.lecturas = new ListaDoble<>();
+        this.escrituras = new ListaDoble<>();
+    }
+
+    void encolar(IOProcess process) {
+        process.cola = this;
+        process.nodoClase = llegada.agregarAlFinal(process);
+        process.nodoOperacion = (process.esLectura() ? lecturas : escrituras).agregarAlFinal(process);
+        process.nodoPosicion = porPosicion.computeIfAbsent(posicion(process), k -> new ListaDoble<>())
+                .agregarAlFinal(process);
+    }
+
+    void quitar(IOProcess process) {
+        llegada.quitar(process.nodoClase);
+        process.nodoClase = null;
+        (process.esLectura() ? lecturas : escrituras).quitar(process.nodoOperacion);
+        process.nodoOperacion = null;
+        int posicion = posicion(process);
+        ListaDoble<IOProcess> mismos = porPosicion.get(posicion);
+        mismos.quitar(process.nodoPosicion);
+        process.nodoPosicion = null;
+        if (mismos.estaVacia()) {
+            porPosicion.remove(posicion);
+        }
+        process.cola = null;
+    }
+
+    void registrarDespacho(long esperaMs) {
+        despachados++;
+        esperaTotalMs += esperaMs;
+    }
+
+    IOProcess primero() {
+        NodoDoble<IOProcess> cabeza = llegada.getCabeza();
+        return cabeza == null ? null : cabeza.dato;
+    }
+
+    IOProcess techo(int posicion) {
+        return primeroDe(porPosicion.ceilingEntry(posicion));
+    }
+
+    IOProcess piso(int posicion) {
+        return primeroDe(porPosicion.floorEntry(posicion));
+    }
+
+    IOProcess menor() {
+        return primeroDe(porPosicion.firstEntry());
+    }
+
+    IOProcess mayor() {
+        return primeroDe(porPosicion.lastEntry());
+    }
+
+    // La lectura de 'usuario' más cercana a 'posicion' sin pasar de 'radio' bloques, o null.
+    // Solo recorre las posiciones dentro del radio.
+    IOProcess lecturaCercana(String usuario, int posicion, int radio) {
+        IOProcess mejor = null;
+        int mejorDistancia = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, ListaDoble<IOProcess>> entrada
+                : porPosicion.subMap(posicion - radio, true, posicion + radio, true).entrySet()) {
+            int distancia = Math.abs(entrada.getKey() - posicion);
+            if (distancia >= mejorDistancia) {
+                continue;
+            }
+            for (NodoDoble<IOProcess> actual = entrada.getValue().getCabeza(); actual != null; actual = actual.siguiente) {
+                if (actual.dato.esLectura() && usuario.equals(actual.dato.getUsuario())) {
+                    mejor = actual.dato;
+                    mejorDistancia = distancia;
+                    break;
+                }
+            }
+        }
+        return mejor;
+    }
+
+    IOProcess masAntiguo(boolean lectura) {
+        NodoDoble<IOProcess> cabeza = (lectura ? lecturas : escrituras).getCabeza();
+        return cabeza == null ? null : cabeza.dato;
+    }
+
+    boolean estaVacia() {
+        return llegada.estaVacia();
+    }
+
+    String getNombre() {
+        return nombre;
+    }
+
+    int getProfundidad() {
+        return llegada.contarElementos();
+    }
+
+    double getEsperaPromedio() {
+        return despachados == 0 ? 0 : (double) esperaTotalMs / despachados;
+    }
+
+    // Cuánto lleva esperando el proceso más antiguo todavía en cola
+    long getEsperaActual(long ahora) {
+        IOProcess mas = primero();
+        return mas == null ? 0 : ahora - mas.getTiempoEncolado();
+    }
+
+    long getDespachados() {
+        return despachados;
+    }
+
+    private static IOProcess primeroDe(Map.Entry<Integer, ListaDoble<IOProcess>> entrada) {
+        return entrada == null ? null : entrada.getValue().getCabeza().dato;
+    }
+
+    private static int posicion(IOProcess process) {
+        return process.getIoRequest().getBlockPosition();
+    }
+}
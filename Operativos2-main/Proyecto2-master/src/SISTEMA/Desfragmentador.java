@@ -0,0 +1,67 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+/**
+ * Hilo de fondo del desfragmentador: cada 'pausaMs' da un paso (un archivo
+ * por vez, ver FileSystem.pasoDesfragmentacion) y se detiene solo cuando ya
+ * no queda nada que mover. Cede ante la cola de I/O: mientras haya pedidos
+ * pendientes o una ronda en curso no da ningún paso, así que nunca compite
+ * con un pedido del usuario por el disco ni por el candado del FileSystem.
+ */
+class Desfragmentador implements Runnable {
+    private FileSystem fileSystem;
+    private long pausaMs;
+    private volatile boolean activo;
+    private Thread hilo;
+
+    Desfragmentador(FileSystem fileSystem, long pausaMs) {
+        this.fileSystem = fileSystem;
+        this.pausaMs = pausaMs;
+        this.activo = false;
+    }
+
+    void iniciar() {
+        activo = true;
+        hilo = new Thread(this, "Desfragmentador");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    void detener() {
+        activo = false;
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    boolean isActivo() {
+        return activo;
+    }
+
+    @Override
+    public void run() {
+        while (activo) {
+            synchronized (this) {
+                try {
+                    wait(pausaMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            if (!activo || fileSystem.hayProcesosPendientes()) {
+                continue;
+            }
+            if (!fileSystem.pasoDesfragmentacion()) {
+                activo = false;
+                fileSystem.terminarDesfragmentacion(this);
+            }
+        }
+    }
+
+    long getPausaMs() {
+        return pausaMs;
+    }
+}
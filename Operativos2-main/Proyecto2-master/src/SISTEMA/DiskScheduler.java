@@ -4,18 +4,90 @@
  */
 package SISTEMA;
 
-import EDD.ListaEnlazada;
-import EDD.Nodo;
-
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+
+/**
+ * Planificador de disco. SCAN y C-SCAN llevan el cabezal hasta el borde del
+ * disco (bloque 0 o disk.getTotalBlocks() - 1) antes de invertir o volver;
+ * LOOK y C-LOOK solo llegan hasta el último pedido pendiente. Cada
+ * movimiento del cabezal se suma al desplazamiento de la política activa,
+ * para comparar cuál mueve menos el cabezal con la misma carga.
+ *
+ * DEADLINE atiende en orden de elevador (ascendente, como C-LOOK), pero si
+ * la lectura o la escritura más antigua de la cola ya superó su plazo, la
+ * atiende primero y el barrido sigue desde ahí. Así SSTF/elevador no dejan
+ * esperando para siempre a los pedidos del otro extremo del disco.
+ *
+ * Modo anticipatorio (ventana > 0): después de atender una lectura, si el
+ * mismo usuario tiene otra lectura cerca del cabezal se atiende esa; si no,
+ * se espera hasta la ventana a que llegue antes de saltar al pedido de otro
+ * usuario. Evita que el cabezal vaya y venga entre lecturas secuenciales
+ * de un usuario y pedidos cercanos de otros. Con cola justa solo se
+ * anticipa para el usuario que tiene el turno, y tras MAX_ANTICIPADAS
+ * despachos anticipados seguidos decide la política, como el vencimiento
+ * de lote del planificador anticipatorio: un lector secuencial no acapara
+ * el disco.
+ *
+ * Modo NCQ (profundidad > 1): scheduleLote() toma hasta 'profundidad'
+ * pedidos en el orden de la política y los reordena con el recorrido más
+ * corto del cabezal que los visita a todos, como hace un disco con cola de
+ * comandos. El lote se ejecuta seguido; se lleva cuánto recorrido ahorró el
+ * reordenamiento frente al orden de la política.
+ */
 public class DiskScheduler {
+    static final int MAX_ANTICIPADAS = 16;
+
     private SchedulingPolicy policy;
+    private SimulatedDisk disk;
     private int currentHead;
+    // Otro disco del arreglo movió este cabezal (franjas de un pedido ajeno o una
+    // copia del desfragmentador): la próxima decisión parte de donde quedó el disco
+    private volatile boolean cabezalMovidoPorOtro;
     private boolean scanDirection;
-
-    public DiskScheduler(SchedulingPolicy policy) {
+    // Bloques recorridos por el cabezal y pedidos despachados, por política
+    private EnumMap<SchedulingPolicy, Long> desplazamiento;
+    private EnumMap<SchedulingPolicy, Long> despachos;
+    // Tiempo de servicio simulado (µs) de los pedidos atendidos, por política
+    private EnumMap<SchedulingPolicy, Long> servicio;
+    private EnumMap<SchedulingPolicy, Long> atendidos;
+    // DEADLINE: plazos en ms (las lecturas suelen tener a alguien esperando, por eso el suyo es menor)
+    private long plazoLecturaMs;
+    private long plazoEscrituraMs;
+    private long despachosPorVencimiento;
+    // Anticipación: ventana de espera (0 = apagada), radio en bloques y a quién se espera
+    private long ventanaAnticipacionMs;
+    private int radioAnticipacion;
+    private String ultimoLector;
+    private long continuaciones;     // La siguiente lectura ya estaba en cola
+    private long esperas;            // Se esperó la ventana
+    private long esperasPremiadas;   // ... y la lectura llegó a tiempo
+    private long tiempoEsperadoMs;
+    private boolean esperaDecidida;  // anticipar() quiere esperar: scheduleNext() lo hace sin el candado
+    private int anticipadasSeguidas;
+    private long cortesPorLimite;    // La política volvió a decidir por MAX_ANTICIPADAS
+    // NCQ: profundidad del lote (1 = apagado) y recorrido con y sin reordenar
+    private int profundidadNCQ;
+    private boolean armandoLote;     // mover() solo simula el recorrido de la política
+    private long recorridoLote;
+    private long lotes;
+    private long pedidosEnLotes;
+    private long recorridoSinReordenar;
+    private long recorridoReordenado;
+
+    public DiskScheduler(SchedulingPolicy policy, SimulatedDisk disk) {
         this.policy = policy;
+        this.disk = disk;
         this.currentHead = 0;
         this.scanDirection = true;
+        this.desplazamiento = new EnumMap<>(SchedulingPolicy.class);
+        this.despachos = new EnumMap<>(SchedulingPolicy.class);
+        this.servicio = new EnumMap<>(SchedulingPolicy.class);
+        this.atendidos = new EnumMap<>(SchedulingPolicy.class);
+        this.plazoLecturaMs = 500;
+        this.plazoEscrituraMs = 5000;
+        this.profundidadNCQ = 1;
         System.out.println("🔧 DiskScheduler inicializado: currentHead=0, scanDirection=ASCENDENTE");
 
     }
@@ -28,67 +100,185 @@ public class DiskScheduler {
         return policy;
     }
 
-    public IOProcess scheduleNext(ListaEnlazada<IOProcess> queue) {
-        if (queue.getCabeza() == null) {
+    /**
+     * Elige y saca de la cola el siguiente proceso según la política. Las
+     * políticas por posición usan el índice ordenado de la ProcessQueue
+     * (búsquedas techo/piso), así que cada despacho es O(log n). Si la
+     * anticipación decide esperar, la ventana se espera sin el candado del
+     * planificador (la interfaz lo usa para leer y cambiar la configuración)
+     * y después se vuelve a elegir.
+     */
+    public IOProcess scheduleNext(ProcessQueue queue) {
+        String lector;
+        int cabezal;
+        int radio;
+        long ventanaMs;
+        synchronized (this) {
+            IOProcess selected = elegirSiguiente(queue, true);
+            if (!esperaDecidida) {
+                return selected;
+            }
+            esperaDecidida = false;
+            lector = ultimoLector;
+            cabezal = currentHead;
+            radio = radioAnticipacion;
+            ventanaMs = ventanaAnticipacionMs;
+        }
+        long inicio = System.currentTimeMillis();
+        queue.esperarLecturaCercana(lector, cabezal, radio, ventanaMs);
+        long esperado = System.currentTimeMillis() - inicio;
+        synchronized (this) {
+            tiempoEsperadoMs += esperado;
+            // Al reloj simulado se le cobra la ventana entera y no lo medido: así las corridas se repiten igual
+            disk.avanzarReloj(ventanaMs * 1000);
+            return elegirSiguiente(queue, false);
+        }
+    }
+
+    private IOProcess elegirSiguiente(ProcessQueue queue, boolean puedeEsperar) {
+        sincronizarCabezal();
+        if (queue.isEmpty()) {
             return null;
         }
 
+        // Con cola justa, primero se decide a qué usuario le toca
+        queue.elegirTurno();
+        IOProcess selected = anticipar(queue, puedeEsperar);
+        if (esperaDecidida) {
+            return null;
+        }
+        if (selected != null) {
+            despachos.merge(policy, 1L, Long::sum);
+            ultimoLector = selected.getUsuario();
+            anticipadasSeguidas++;
+            return selected;
+        }
+        anticipadasSeguidas = 0;
         switch (policy) {
             case FIFO:
-                return scheduleFIFO(queue);
+                selected = scheduleFIFO(queue);
+                break;
             case SSTF:
-                return scheduleSSTF(queue);
+                selected = scheduleSSTF(queue);
+                break;
             case SCAN:
-                return scheduleSCAN(queue);
+                selected = scheduleSCAN(queue, true);
+                break;
+            case LOOK:
+                selected = scheduleSCAN(queue, false);
+                break;
             case CSCAN:
-                return scheduleCSCAN(queue);
+                selected = scheduleCSCAN(queue, true);
+                break;
+            case CLOOK:
+                selected = scheduleCSCAN(queue, false);
+                break;
+            case DEADLINE:
+                selected = scheduleDEADLINE(queue);
+                break;
             default:
-                return scheduleFIFO(queue);
+                selected = scheduleFIFO(queue);
+                break;
         }
+        if (selected != null) {
+            despachos.merge(policy, 1L, Long::sum);
+            ultimoLector = selected.esLectura() ? selected.getUsuario() : null;
+        }
+        return selected;
     }
 
-    private IOProcess scheduleFIFO(ListaEnlazada<IOProcess> queue) {
-        Nodo<IOProcess> cabeza = queue.getCabeza();
-        if (cabeza != null) {
-            IOProcess process = cabeza.dato;
-            queue.eliminar(process);
-            currentHead = process.getIoRequest().getBlockPosition();
+    /**
+     * Devuelve la próxima lectura del último lector si está cerca del
+     * cabezal. Si no está y se puede esperar, marca esperaDecidida y
+     * devuelve null; la segunda vuelta (ya esperada la ventana) solo mira si
+     * llegó.
+     */
+    private IOProcess anticipar(ProcessQueue queue, boolean puedeEsperar) {
+        if (ventanaAnticipacionMs <= 0 || ultimoLector == null || armandoLote) {
+            return null;
+        }
+        if (anticipadasSeguidas >= MAX_ANTICIPADAS) {
+            cortesPorLimite++;
+            return null;
+        }
+        if (policy == SchedulingPolicy.DEADLINE) {
+            // Los plazos vencidos van antes que la anticipación
+            long ahora = System.currentTimeMillis();
+            if (vencido(queue.masAntiguo(true), plazoLecturaMs, ahora) != null
+                    || vencido(queue.masAntiguo(false), plazoEscrituraMs, ahora) != null) {
+                return null;
+            }
+        }
+        IOProcess siguiente = queue.lecturaCercana(ultimoLector, currentHead, radioAnticipacion);
+        if (siguiente != null) {
+            if (puedeEsperar) {
+                continuaciones++;
+            } else {
+                esperasPremiadas++;
+            }
+        } else if (!puedeEsperar) {
+            System.out.println("⏳ Anticipación: " + ultimoLector + " no pidió nada cerca en " + ventanaAnticipacionMs + " ms");
+            ultimoLector = null;
+            return null;
+        } else if (queue.esperanOtros(ultimoLector)) {
+            ultimoLector = null;
+            return null;
+        } else {
+            esperas++;
+            esperaDecidida = true;
+            return null;
+        }
+        System.out.println("⏳ Anticipación: " + siguiente.getName() + " de " + siguiente.getUsuario() + " en bloque " + siguiente.getIoRequest().getBlockPosition());
+        queue.despachar(siguiente);
+        mover(siguiente.getIoRequest().getBlockPosition());
+
+        // 📝 LOG EN AUDIT
+        AuditLog.registrarAccion("Sistema", 
+            String.format("⏳ %s (anticipatorio) procesó '%s' (bloque %d)", 
+                policy,
+                siguiente.getIoRequest().getFileName(), 
+                currentHead));
+        return siguiente;
+    }
+
+    private IOProcess scheduleFIFO(ProcessQueue queue) {
+        IOProcess process = queue.primero();
+        if (process != null) {
+            queue.despachar(process);
+            mover(process.getIoRequest().getBlockPosition());
             return process;
         }
         return null;
     }
 
-    private IOProcess scheduleSSTF(ListaEnlazada<IOProcess> queue) {
+    private IOProcess scheduleSSTF(ProcessQueue queue) {
         // 🔍 LOG DE DEBUG
         System.out.println("🔍 SSTF - currentHead: " + currentHead);
 
-        Nodo<IOProcess> actual = queue.getCabeza();
-        IOProcess closest = null;
-        int minDistance = Integer.MAX_VALUE;
-
-        // 📋 Mostrar todos los procesos en cola
-        System.out.println("   📋 Procesos en cola:");
-        Nodo<IOProcess> temp = queue.getCabeza();
-        while (temp != null) {
-            int blockPos = temp.dato.getIoRequest().getBlockPosition();
-            int distance = Math.abs(blockPos - currentHead);
-            System.out.println("      - " + temp.dato.getName() + " en bloque " + blockPos + " (distancia: " + distance + ")");
-            temp = temp.siguiente;
-        }
-
-        while (actual != null) {
-            int distance = Math.abs(actual.dato.getIoRequest().getBlockPosition() - currentHead);
-            if (distance < minDistance) {
-                minDistance = distance;
-                closest = actual.dato;
+        // El más cercano está justo arriba o justo abajo del cabezal
+        IOProcess arriba = queue.techo(currentHead);
+        IOProcess abajo = queue.piso(currentHead);
+        IOProcess closest;
+        if (arriba == null) {
+            closest = abajo;
+        } else if (abajo == null) {
+            closest = arriba;
+        } else {
+            int distArriba = arriba.getIoRequest().getBlockPosition() - currentHead;
+            int distAbajo = currentHead - abajo.getIoRequest().getBlockPosition();
+            if (distArriba != distAbajo) {
+                closest = distArriba < distAbajo ? arriba : abajo;
+            } else {
+                // Empate: gana el que llegó primero
+                closest = arriba.getId() < abajo.getId() ? arriba : abajo;
             }
-            actual = actual.siguiente;
         }
 
         if (closest != null) {
+            int minDistance = Math.abs(closest.getIoRequest().getBlockPosition() - currentHead);
             System.out.println("   ✅ Seleccionado: " + closest.getName() + " (distancia mínima: " + minDistance + ")");
-            queue.eliminar(closest);
-            currentHead = closest.getIoRequest().getBlockPosition();
+            queue.despachar(closest);
+            mover(closest.getIoRequest().getBlockPosition());
 
             // 📝 LOG EN AUDIT
             AuditLog.registrarAccion("Sistema", 
@@ -100,61 +290,41 @@ public class DiskScheduler {
         return closest;
     }
 
-    private IOProcess scheduleSCAN(ListaEnlazada<IOProcess> queue) {
+    // SCAN (hastaElBorde) o LOOK: barre en una dirección y se invierte al terminar
+    private IOProcess scheduleSCAN(ProcessQueue queue, boolean hastaElBorde) {
+        String nombre = hastaElBorde ? "SCAN" : "LOOK";
         // 🔍 LOG DE DEBUG
-        System.out.println("🔍 SCAN - currentHead: " + currentHead + ", direction: " + (scanDirection ? "ASCENDENTE ↑" : "DESCENDENTE ↓"));
-
-        Nodo<IOProcess> actual = queue.getCabeza();
-        IOProcess selected = null;
-        int minDistance = Integer.MAX_VALUE;
-
-        // 📋 Mostrar todos los procesos en cola
-        System.out.println("   📋 Procesos en cola:");
-        Nodo<IOProcess> temp = queue.getCabeza();
-        while (temp != null) {
-            System.out.println("      - " + temp.dato.getName() + " en bloque " + temp.dato.getIoRequest().getBlockPosition());
-            temp = temp.siguiente;
-        }
-
-        while (actual != null) {
-            int blockPos = actual.dato.getIoRequest().getBlockPosition();
-
-            if (scanDirection) { // Dirección ASCENDENTE (hacia bloques mayores)
-                if (blockPos >= currentHead) {
-                    int distance = blockPos - currentHead;
-                    if (distance < minDistance) {
-                        minDistance = distance;
-                        selected = actual.dato;
-                    }
-                }
-            } else { // Dirección DESCENDENTE (hacia bloques menores)
-                if (blockPos <= currentHead) {
-                    int distance = currentHead - blockPos;
-                    if (distance < minDistance) {
-                        minDistance = distance;
-                        selected = actual.dato;
-                    }
-                }
-            }
-            actual = actual.siguiente;
-        }
+        System.out.println("🔍 " + nombre + " - currentHead: " + currentHead + ", direction: " + (scanDirection ? "ASCENDENTE ↑" : "DESCENDENTE ↓"));
+
+        IOProcess selected = scanDirection ? queue.techo(currentHead) : queue.piso(currentHead);
 
         // Si no encontramos ningún proceso en la dirección actual, cambiamos de dirección
         if (selected == null) {
-            System.out.println("   ⚠️  No hay más procesos en dirección " + (scanDirection ? "ASCENDENTE" : "DESCENDENTE") + ", cambiando dirección...");
+            if (hastaElBorde) {
+                // SCAN real: el cabezal recorre hasta el extremo del disco antes de invertir
+                int borde = scanDirection ? disk.getTotalBlocks() - 1 : 0;
+                System.out.println("   ⚠️  No hay más procesos en dirección " + (scanDirection ? "ASCENDENTE" : "DESCENDENTE") + ", llegando al borde (bloque " + borde + ") y cambiando dirección...");
+                mover(borde);
+            } else {
+                System.out.println("   ⚠️  No hay más procesos en dirección " + (scanDirection ? "ASCENDENTE" : "DESCENDENTE") + ", cambiando dirección...");
+            }
             scanDirection = !scanDirection;
-            return scheduleSCAN(queue); // Recursivamente buscar en la otra dirección
+            selected = scanDirection ? queue.techo(currentHead) : queue.piso(currentHead);
+            if (selected == null) {
+                return null;
+            }
         }
 
         // Registrar selección
         System.out.println("   ✅ Seleccionado: " + selected.getName() + " en bloque " + selected.getIoRequest().getBlockPosition());
 
-        queue.eliminar(selected);
-        currentHead = selected.getIoRequest().getBlockPosition();
+        queue.despachar(selected);
+        mover(selected.getIoRequest().getBlockPosition());
 
         // 📝 LOG EN AUDIT
         AuditLog.registrarAccion("Sistema", 
-            String.format("🔍 SCAN procesó '%s' (bloque %d, dirección: %s)", 
+            String.format("🔍 %s procesó '%s' (bloque %d, dirección: %s)", 
+                nombre,
                 selected.getIoRequest().getFileName(), 
                 currentHead,
                 scanDirection ? "↑" : "↓"));
@@ -162,62 +332,37 @@ public class DiskScheduler {
         return selected;
     }
 
-    private IOProcess scheduleCSCAN(ListaEnlazada<IOProcess> queue) {
+    // C-SCAN (hastaElBorde) o C-LOOK: siempre ascendente; al terminar vuelve al principio
+    private IOProcess scheduleCSCAN(ProcessQueue queue, boolean hastaElBorde) {
+        String nombre = hastaElBorde ? "C-SCAN" : "C-LOOK";
         // 🔍 LOG DE DEBUG
-        System.out.println("🔍 C-SCAN - currentHead: " + currentHead + " (siempre dirección ASCENDENTE ↑)");
-
-        Nodo<IOProcess> actual = queue.getCabeza();
-        IOProcess selected = null;
-        int minDistance = Integer.MAX_VALUE;
-
-        // 📋 Mostrar todos los procesos en cola
-        System.out.println("   📋 Procesos en cola:");
-        Nodo<IOProcess> temp = queue.getCabeza();
-        while (temp != null) {
-            System.out.println("      - " + temp.dato.getName() + " en bloque " + temp.dato.getIoRequest().getBlockPosition());
-            temp = temp.siguiente;
-        }
+        System.out.println("🔍 " + nombre + " - currentHead: " + currentHead + " (siempre dirección ASCENDENTE ↑)");
 
         // Buscar el proceso más cercano en dirección ascendente (>= currentHead)
-        while (actual != null) {
-            int blockPos = actual.dato.getIoRequest().getBlockPosition();
-
-            if (blockPos >= currentHead) {
-                int distance = blockPos - currentHead;
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    selected = actual.dato;
-                }
-            }
-            actual = actual.siguiente;
-        }
+        IOProcess selected = queue.techo(currentHead);
 
-        // Si no hay procesos adelante, volver al inicio del disco (circular)
+        // Si no hay procesos adelante, volver al inicio (circular)
         if (selected == null) {
-            System.out.println("   🔄 No hay procesos adelante, regresando al inicio del disco (posición 0)...");
-            currentHead = 0;
-            actual = queue.getCabeza();
-            minDistance = Integer.MAX_VALUE;
-
-            while (actual != null) {
-                int blockPos = actual.dato.getIoRequest().getBlockPosition();
-                int distance = blockPos; // Distancia desde 0
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    selected = actual.dato;
-                }
-                actual = actual.siguiente;
+            if (hastaElBorde) {
+                // El cabezal llega al último bloque y regresa al 0; ambos trayectos cuentan
+                System.out.println("   🔄 No hay procesos adelante, llegando al borde (bloque " + (disk.getTotalBlocks() - 1) + ") y regresando al inicio del disco (posición 0)...");
+                mover(disk.getTotalBlocks() - 1);
+                mover(0);
+            } else {
+                System.out.println("   🔄 No hay procesos adelante, saltando al pedido más bajo...");
             }
+            selected = queue.menor();
         }
 
         if (selected != null) {
             System.out.println("   ✅ Seleccionado: " + selected.getName() + " en bloque " + selected.getIoRequest().getBlockPosition());
-            queue.eliminar(selected);
-            currentHead = selected.getIoRequest().getBlockPosition();
+            queue.despachar(selected);
+            mover(selected.getIoRequest().getBlockPosition());
 
             // 📝 LOG EN AUDIT
             AuditLog.registrarAccion("Sistema", 
-                String.format("🔍 C-SCAN procesó '%s' (bloque %d)", 
+                String.format("🔍 %s procesó '%s' (bloque %d)", 
+                    nombre,
                     selected.getIoRequest().getFileName(), 
                     currentHead));
         }
@@ -225,7 +370,274 @@ public class DiskScheduler {
         return selected;
     }
 
+    private IOProcess scheduleDEADLINE(ProcessQueue queue) {
+        long ahora = System.currentTimeMillis();
+        // Primero las lecturas vencidas, después las escrituras vencidas
+        IOProcess vencido = vencido(queue.masAntiguo(true), plazoLecturaMs, ahora);
+        if (vencido == null) {
+            vencido = vencido(queue.masAntiguo(false), plazoEscrituraMs, ahora);
+        }
+
+        if (vencido != null) {
+            long espera = ahora - vencido.getTiempoEncolado();
+            System.out.println("⏰ DEADLINE - plazo vencido: " + vencido.getName() + " esperó " + espera + " ms");
+            queue.despachar(vencido);
+            mover(vencido.getIoRequest().getBlockPosition());
+            despachosPorVencimiento++;
+
+            // 📝 LOG EN AUDIT
+            AuditLog.registrarAccion("Sistema", 
+                String.format("⏰ DEADLINE procesó '%s' por plazo vencido (bloque %d, esperó %d ms)", 
+                    vencido.getIoRequest().getFileName(), 
+                    currentHead,
+                    espera));
+            return vencido;
+        }
+
+        // Nada vencido: barrido ascendente desde el cabezal
+        IOProcess selected = queue.techo(currentHead);
+        if (selected == null) {
+            selected = queue.menor();
+        }
+        if (selected != null) {
+            System.out.println("🔍 DEADLINE - currentHead: " + currentHead + ", seleccionado: " + selected.getName() + " en bloque " + selected.getIoRequest().getBlockPosition());
+            queue.despachar(selected);
+            mover(selected.getIoRequest().getBlockPosition());
+
+            // 📝 LOG EN AUDIT
+            AuditLog.registrarAccion("Sistema", 
+                String.format("🔍 DEADLINE procesó '%s' (bloque %d)", 
+                    selected.getIoRequest().getFileName(), 
+                    currentHead));
+        }
+        return selected;
+    }
+
+    private static IOProcess vencido(IOProcess process, long plazoMs, long ahora) {
+        if (process != null && ahora - process.getTiempoEncolado() >= plazoMs) {
+            return process;
+        }
+        return null;
+    }
+
+    /**
+     * Despacha un lote de hasta 'profundidadNCQ' pedidos en el orden en que
+     * conviene atenderlos. Sin NCQ es un lote de uno (scheduleNext). Con NCQ
+     * se eligen con la política activa, sin mover el cabezal, y se reordenan
+     * con el recorrido mínimo desde el cabezal. El disco hace la búsqueda de
+     * cada uno al atenderlo.
+     */
+    public IOProcess[] scheduleLote(ProcessQueue queue) {
+        if (getProfundidadNCQ() <= 1) {
+            // Sin el candado tomado: scheduleNext() lo suelta mientras anticipa
+            IOProcess process = scheduleNext(queue);
+            return process == null ? new IOProcess[0] : new IOProcess[]{process};
+        }
+        return armarLote(queue);
+    }
+
+    // Con lote no se anticipa (armandoLote), así que scheduleNext() nunca espera con el candado tomado
+    private synchronized IOProcess[] armarLote(ProcessQueue queue) {
+        sincronizarCabezal();
+        int inicio = currentHead;
+        IOProcess[] lote = new IOProcess[profundidadNCQ];
+        int n = 0;
+        armandoLote = true;
+        recorridoLote = 0;
+        try {
+            while (n < profundidadNCQ) {
+                IOProcess process = scheduleNext(queue);
+                if (process == null) {
+                    break;
+                }
+                lote[n++] = process;
+            }
+        } finally {
+            armandoLote = false;
+        }
+        lote = Arrays.copyOf(lote, n);
+        currentHead = inicio;
+        if (n == 0) {
+            return lote;
+        }
+
+        ordenarRecorridoMinimo(lote, inicio);
+        long recorrido = 0;
+        for (IOProcess process : lote) {
+            recorrido += Math.abs(process.getIoRequest().getBlockPosition() - currentHead);
+            currentHead = process.getIoRequest().getBlockPosition();
+        }
+        desplazamiento.merge(policy, recorrido, Long::sum);
+        lotes++;
+        pedidosEnLotes += n;
+        recorridoSinReordenar += recorridoLote;
+        recorridoReordenado += recorrido;
+        System.out.println("📦 NCQ: lote de " + n + " pedidos, recorrido " + recorrido + " bloques (la política hacía " + recorridoLote + ")");
+        return lote;
+    }
+
+    /**
+     * Ordena el lote con el recorrido más corto que sale de 'inicio' y pasa
+     * por todas las posiciones. Si todos están en el cabezal o debajo, es un
+     * solo barrido bajando. Si no, se atiende subiendo: cuando el extremo de
+     * abajo está más cerca, se baja sin atender y se atiende todo en orden
+     * ascendente (el recorrido es el mismo y el plato no se pierde la vuelta
+     * en cada bloque, como pasa al leer hacia atrás); cuando el de arriba
+     * está más cerca, se sube atendiendo y los de abajo se atienden al volver.
+     * Los empatados en posición siguen en orden de llegada (un CREATE antes
+     * que el UPDATE que lo sigue).
+     */
+    static void ordenarRecorridoMinimo(IOProcess[] lote, int inicio) {
+        Comparator<IOProcess> subiendo = Comparator.comparingInt((IOProcess p) -> p.getIoRequest().getBlockPosition())
+                .thenComparingInt(IOProcess::getId);
+        Comparator<IOProcess> bajando = Comparator.comparingInt((IOProcess p) -> -p.getIoRequest().getBlockPosition())
+                .thenComparingInt(IOProcess::getId);
+        Arrays.sort(lote, subiendo);
+        int menor = lote[0].getIoRequest().getBlockPosition();
+        int mayor = lote[lote.length - 1].getIoRequest().getBlockPosition();
+        if (mayor <= inicio) {
+            Arrays.sort(lote, bajando);
+            return;
+        }
+        if (inicio <= menor || inicio - menor < mayor - inicio) {
+            return;
+        }
+        int k = 0;
+        while (lote[k].getIoRequest().getBlockPosition() < inicio) {
+            k++;
+        }
+        IOProcess[] abajo = Arrays.copyOfRange(lote, 0, k);
+        Arrays.sort(abajo, bajando);
+        System.arraycopy(lote, k, lote, 0, lote.length - k);
+        System.arraycopy(abajo, 0, lote, lote.length - k, k);
+    }
+
+    public synchronized void setProfundidadNCQ(int profundidad) {
+        this.profundidadNCQ = Math.max(1, profundidad);
+    }
+
+    public synchronized int getProfundidadNCQ() {
+        return profundidadNCQ;
+    }
+
+    public synchronized String getResumenNCQ() {
+        if (lotes == 0) {
+            return profundidadNCQ <= 1 ? "   • NCQ: apagado\n" : "   • NCQ: profundidad " + profundidadNCQ + ", sin lotes todavía\n";
+        }
+        return String.format("   • NCQ: profundidad %d | %d lotes (%.1f pedidos por lote)%n"
+                + "   • Recorrido: %d bloques reordenado vs %d en orden de la política (%.1f%% menos)%n",
+                profundidadNCQ, lotes, (double) pedidosEnLotes / lotes, recorridoReordenado, recorridoSinReordenar,
+                recorridoSinReordenar == 0 ? 0.0 : (recorridoSinReordenar - recorridoReordenado) * 100.0 / recorridoSinReordenar);
+    }
+
+    // Lleva el cabezal a 'destino' y suma la distancia a la política activa
+    private void mover(int destino) {
+        if (armandoLote) {
+            recorridoLote += Math.abs(destino - currentHead);
+            currentHead = destino;
+            return;
+        }
+        desplazamiento.merge(policy, (long) Math.abs(destino - currentHead), Long::sum);
+        currentHead = destino;
+        disk.buscar(destino);
+    }
+
+    // Suma el tiempo de servicio simulado de un pedido atendido a la política activa
+    public synchronized void registrarServicio(long servicioUs) {
+        servicio.merge(policy, servicioUs, Long::sum);
+        atendidos.merge(policy, 1L, Long::sum);
+    }
+
+    public synchronized double getServicioPromedioMs(SchedulingPolicy policy) {
+        long total = atendidos.getOrDefault(policy, 0L);
+        return total == 0 ? 0 : servicio.getOrDefault(policy, 0L) / 1000.0 / total;
+    }
+
+    // Avisa que el cabezal del disco se movió sin pasar por este planificador
+    public void cabezalMovido() {
+        cabezalMovidoPorOtro = true;
+    }
+
+    private void sincronizarCabezal() {
+        if (cabezalMovidoPorOtro && !armandoLote) {
+            cabezalMovidoPorOtro = false;
+            currentHead = disk.getCabezal();
+        }
+    }
+
     public int getCurrentHead() {
-        return currentHead;
+        return cabezalMovidoPorOtro ? disk.getCabezal() : currentHead;
+    }
+
+    public synchronized void setPlazosDeadline(long plazoLecturaMs, long plazoEscrituraMs) {
+        this.plazoLecturaMs = plazoLecturaMs;
+        this.plazoEscrituraMs = plazoEscrituraMs;
+    }
+
+    public synchronized long getPlazoLectura() {
+        return plazoLecturaMs;
+    }
+
+    public synchronized long getPlazoEscritura() {
+        return plazoEscrituraMs;
+    }
+
+    /**
+     * Activa el modo anticipatorio: tras una lectura se espera hasta
+     * 'ventanaMs' otra lectura del mismo usuario a no más de 'radio' bloques.
+     * Con ventanaMs = 0 se apaga.
+     */
+    public synchronized void setAnticipacion(long ventanaMs, int radio) {
+        this.ventanaAnticipacionMs = Math.max(0, ventanaMs);
+        this.radioAnticipacion = Math.max(0, radio);
+        this.ultimoLector = null;
+    }
+
+    public synchronized long getVentanaAnticipacion() {
+        return ventanaAnticipacionMs;
+    }
+
+    public synchronized String getResumenAnticipacion() {
+        if (ventanaAnticipacionMs <= 0 && continuaciones + esperas == 0) {
+            return "   • Modo anticipatorio: apagado\n";
+        }
+        return String.format("   • Modo anticipatorio: ventana %d ms, radio %d bloques%n"
+                + "   • Continuaciones sin esperar: %d | Esperas: %d (premiadas: %d, %.1f%%) | Tiempo esperado: %d ms%n"
+                + "   • Cortes por límite de %d seguidas: %d%n",
+                ventanaAnticipacionMs, radioAnticipacion, continuaciones, esperas, esperasPremiadas,
+                esperas == 0 ? 0.0 : esperasPremiadas * 100.0 / esperas, tiempoEsperadoMs,
+                MAX_ANTICIPADAS, cortesPorLimite);
+    }
+
+    // Pedidos que DEADLINE atendió antes de tiempo porque se les venció el plazo
+    public synchronized long getDespachosPorVencimiento() {
+        return despachosPorVencimiento;
+    }
+
+    // Total de bloques que recorrió el cabezal mientras 'policy' estuvo activa
+    public synchronized long getDesplazamientoTotal(SchedulingPolicy policy) {
+        return desplazamiento.getOrDefault(policy, 0L);
+    }
+
+    public synchronized long getDespachos(SchedulingPolicy policy) {
+        return despachos.getOrDefault(policy, 0L);
+    }
+
+    public synchronized double getDesplazamientoPromedio(SchedulingPolicy policy) {
+        long total = despachos.getOrDefault(policy, 0L);
+        return total == 0 ? 0 : (double) desplazamiento.getOrDefault(policy, 0L) / total;
+    }
+
+    // Una línea por política usada: desplazamiento total y promedio por pedido
+    public synchronized String getResumenDesplazamiento() {
+        StringBuilder resumen = new StringBuilder();
+        for (SchedulingPolicy p : SchedulingPolicy.values()) {
+            long total = despachos.getOrDefault(p, 0L);
+            if (total > 0) {
+                resumen.append(String.format("   • %s: %d bloques en %d pedidos (%.1f por pedido, servicio medio %.2f ms)%n",
+                        p, desplazamiento.getOrDefault(p, 0L), total, getDesplazamientoPromedio(p), getServicioPromedioMs(p)));
+            }
+        }
+        return resumen.length() == 0 ? "   • Sin pedidos despachados\n" : resumen.toString();
     }
-}
\ No newline at end of file
+}
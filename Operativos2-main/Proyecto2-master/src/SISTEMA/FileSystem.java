@@ -5,30 +5,63 @@ import EDD.DirectoryEntry;
 import EDD.FileEntry;
 import EDD.ListaEnlazada;
 import EDD.Nodo;
+import EDD.NodoDoble;
+import EDD.Tramo;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 
 public class FileSystem {
     private DirectoryEntry root;
-    private SimulatedDisk disk;
-    private ProcessQueue processQueue;
-    private DiskScheduler scheduler;
-    private BufferCache buffer;
+    private SimulatedDisk disk; // Volumen lógico: mapa de bloques y persistencia
+    // Arreglo RAID-0: cada disco tiene su cabezal, su planificador, su cola y su trabajador.
+    // Con un solo disco, discos[0] es el mismo 'disk'.
+    private SimulatedDisk[] discos;
+    private DiskScheduler[] planificadores;
+    private ProcessQueue[] colas;
+    private ExecutorService trabajadores;
+    private long ventanaAnticipacionMs;
+    private int radioAnticipacion;
+    private int profundidadNCQ = 1;
+    private long pedidosAtendidos;
+    // volatile: redimensionarBuffer() lo reemplaza mientras otros hilos lo usan
+    private volatile BufferCache buffer;
+    // Desfragmentación en segundo plano y sus números: antes, después y lo que movió
+    private volatile Desfragmentador desfragmentador;
+    private int[] fragmentacionAntes;
+    private int[] fragmentacionDespues;
+    private int archivosReubicados;
+    private int tramosCorridos;
+    private long bloquesMovidos;
+    private long tiempoDesfragmentacionUs;
     private static final String INFO_PATH = "INFO/";
     private static final String FILE_NAME = INFO_PATH + "filesystem.json";
-    private boolean processingActive;
+    private volatile boolean processingActive;
 
     public FileSystem(int diskSize) {
+        this(diskSize, 1);
+    }
+
+    public FileSystem(int diskSize, int numDiscos) {
         this.root = new DirectoryEntry("root");
         this.disk = new SimulatedDisk(diskSize);
-        this.processQueue = new ProcessQueue();
-        this.scheduler = new DiskScheduler(SchedulingPolicy.FIFO);
+        this.disk.abrirAlmacen();
+        configurarDiscos(numDiscos);
         this.buffer = new BufferCache(20, CachePolicy.LRU);
+        this.buffer.setLector(disk::leerBloque);
         this.processingActive = false;
         crearCarpetaInfo();
         cargarDesdeArchivo();
@@ -49,12 +82,73 @@ public class FileSystem {
         return disk;
     }
 
+    // Cola y planificador del primer disco (los únicos cuando hay un solo disco)
     public ProcessQueue getProcessQueue() {
-        return processQueue;
+        return colas[0];
     }
 
     public DiskScheduler getScheduler() {
-        return scheduler;
+        return planificadores[0];
+    }
+
+    public int getNumDiscos() {
+        return discos.length;
+    }
+
+    public SimulatedDisk getDisco(int disco) {
+        return discos[disco];
+    }
+
+    public DiskScheduler getPlanificador(int disco) {
+        return planificadores[disco];
+    }
+
+    /**
+     * Arma un arreglo RAID-0 de 'numDiscos' discos: los bloques lógicos se
+     * reparten en franjas de SimulatedDisk.UNIDAD_FRANJA bloques, así un
+     * archivo grande se lee de varios discos a la vez y los pedidos chicos de
+     * distintos archivos van a discos distintos. Cada disco atiende su cola
+     * con su propio cabezal y planificador. Con un
+     * disco es el esquema de siempre. Solo se cambia con las colas vacías y
+     * sin una ronda en curso (sus trabajadores todavía usan los arreglos);
+     * devuelve false si no se pudo.
+     */
+    public synchronized boolean configurarDiscos(int numDiscos) {
+        boolean inicial = colas == null;
+        if (!inicial && (processingActive || hayProcesosPendientes())) {
+            return false;
+        }
+        numDiscos = Math.max(1, Math.min(numDiscos, disk.getTotalBlocks()));
+        SchedulingPolicy politica = planificadores == null ? SchedulingPolicy.FIFO : planificadores[0].getPolicy();
+        boolean colaJusta = colas != null && colas[0].isColaJusta();
+        disk.setNumDiscos(numDiscos);
+        int bloquesPorDisco = disk.getBloquesPorDisco();
+        discos = new SimulatedDisk[numDiscos];
+        planificadores = new DiskScheduler[numDiscos];
+        colas = new ProcessQueue[numDiscos];
+        for (int d = 0; d < numDiscos; d++) {
+            discos[d] = numDiscos == 1 ? disk : new SimulatedDisk(bloquesPorDisco);
+            planificadores[d] = new DiskScheduler(politica, discos[d]);
+            planificadores[d].setAnticipacion(ventanaAnticipacionMs, radioAnticipacion);
+            planificadores[d].setProfundidadNCQ(profundidadNCQ);
+            colas[d] = new ProcessQueue();
+            colas[d].setColaJusta(colaJusta);
+        }
+
+        if (trabajadores != null) {
+            trabajadores.shutdown();
+        }
+        trabajadores = numDiscos == 1 ? null : Executors.newFixedThreadPool(numDiscos, tarea -> {
+            Thread hilo = new Thread(tarea, "TrabajadorDisco");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        if (!inicial) {
+            AuditLog.registrarAccion("Sistema", numDiscos == 1
+                    ? "🗄️ Volvió a un solo disco (" + disk.getTotalBlocks() + " bloques)"
+                    : "🗄️ Arreglo RAID-0 de " + numDiscos + " discos (" + bloquesPorDisco + " bloques cada uno)");
+        }
+        return true;
     }
 
     public BufferCache getBuffer() {
@@ -62,84 +156,806 @@ public class FileSystem {
     }
 
     public void setSchedulingPolicy(SchedulingPolicy policy) {
-        scheduler.setPolicy(policy);
+        for (DiskScheduler planificador : planificadores) {
+            planificador.setPolicy(policy);
+        }
         AuditLog.registrarAccion("Sistema", "📋 Cambió política de planificación a " + policy);
     }
 
+    // Reemplaza el buffer por uno de otra capacidad (p. ej. disk.getTotalBlocks() con CLOCK).
+    // Los buffers grandes se dividen en segmentos para que varios hilos lo usen en paralelo;
+    // los pequeños quedan en un solo segmento y conservan la política exacta.
+    public void redimensionarBuffer(int capacidad) {
+        redimensionarBuffer(capacidad, buffer.isFueraDelHeap());
+    }
+
+    // Con 'fueraDelHeap' el contenido de los bloques se guarda en memoria directa (slab)
+    // No toma el candado del FileSystem mientras apaga el write-back del anterior: su hilo
+    // necesita el de escritura del buffer y el del FileSystem para terminar el último lote.
+    public void redimensionarBuffer(int capacidad, boolean fueraDelHeap) {
+        capacidad = Math.max(1, capacidad);
+        int segmentos = Math.min(Runtime.getRuntime().availableProcessors() * 2, capacidad / 256);
+        BufferCache nuevo = new BufferCache(capacidad, buffer.getPolicy(), Math.max(1, segmentos), fueraDelHeap);
+        nuevo.setLector(disk::leerBloque);
+        BufferCache anterior = buffer;
+        boolean writeBack = anterior.isWriteBack();
+        long intervalo = anterior.getIntervaloWriteBack();
+        anterior.desactivarWriteBack();
+        synchronized (this) {
+            buffer = nuevo;
+        }
+        if (writeBack) {
+            nuevo.activarWriteBack(intervalo, anterior.getMarcaAlta(), this::escribirLoteWriteBack);
+        }
+        AuditLog.registrarAccion("Sistema", "💾 Cambió la capacidad del buffer a " + capacidad + " bloques"
+                + (fueraDelHeap ? " (contenido fuera del heap)" : ""));
+    }
+
+    // Modo anticipatorio del planificador (ventanaMs = 0 lo apaga)
+    public void setAnticipacion(long ventanaMs, int radio) {
+        this.ventanaAnticipacionMs = ventanaMs;
+        this.radioAnticipacion = radio;
+        for (DiskScheduler planificador : planificadores) {
+            planificador.setAnticipacion(ventanaMs, radio);
+        }
+        AuditLog.registrarAccion("Sistema", ventanaMs > 0
+                ? "⏳ Activó el modo anticipatorio (ventana " + ventanaMs + " ms, radio " + radio + " bloques)"
+                : "⏳ Desactivó el modo anticipatorio");
+    }
+
+    public void setAllocationPolicy(AllocationPolicy politica) {
+        disk.setAllocationPolicy(politica);
+        AuditLog.registrarAccion("Sistema", "🧩 Cambió la asignación de bloques a " + politica);
+    }
+
+    // Huecos libres del disco y en cuántos tramos quedaron los archivos
+    public String getResumenFragmentacion() {
+        int[] cuenta = new int[3]; // archivos, tramos, archivos con más de un tramo
+        contarTramosRecursivo(root, cuenta);
+        return disk.getResumenFragmentacion() + String.format(
+                "   • Archivos: %d en %d tramos (%.2f por archivo, %d fragmentados)%n",
+                cuenta[0], cuenta[1], cuenta[0] == 0 ? 0.0 : (double) cuenta[1] / cuenta[0], cuenta[2]);
+    }
+
+    /**
+     * Arranca el desfragmentador en segundo plano: da un paso cada 'pausaMs'
+     * mientras la cola de I/O esté vacía y se detiene solo al terminar.
+     */
+    public synchronized void iniciarDesfragmentacion(long pausaMs) {
+        if (isDesfragmentando()) {
+            return;
+        }
+        fragmentacionAntes = medirFragmentacion();
+        fragmentacionDespues = null;
+        archivosReubicados = 0;
+        tramosCorridos = 0;
+        bloquesMovidos = 0;
+        tiempoDesfragmentacionUs = 0;
+        desfragmentador = new Desfragmentador(this, pausaMs);
+        desfragmentador.iniciar();
+        AuditLog.registrarAccion("Sistema", "🧹 Inició la desfragmentación (un paso cada " + pausaMs + " ms con la cola vacía)");
+    }
+
+    public void detenerDesfragmentacion() {
+        Desfragmentador actual = desfragmentador;
+        if (actual != null && actual.isActivo()) {
+            actual.detener();
+            terminarDesfragmentacion(actual);
+        }
+    }
+
+    public boolean isDesfragmentando() {
+        Desfragmentador actual = desfragmentador;
+        return actual != null && actual.isActivo();
+    }
+
+    // Llamado al detenerla o cuando el hilo ya no encuentra nada que mover
+    synchronized void terminarDesfragmentacion(Desfragmentador quien) {
+        if (quien != desfragmentador || fragmentacionDespues != null) {
+            return;
+        }
+        fragmentacionDespues = medirFragmentacion();
+        AuditLog.registrarAccion("Sistema", String.format("🧹 Desfragmentación terminada: tramos de archivos %d → %d, huecos libres %d → %d",
+                fragmentacionAntes[1], fragmentacionDespues[1], fragmentacionAntes[3], fragmentacionDespues[3]));
+    }
+
+    /**
+     * Un paso del desfragmentador, atómico para el archivo que toca: sus
+     * tramos, el mapa de bloques del disco y sus bloques en el buffer cambian
+     * juntos con el candado tomado. Primero intenta juntar un archivo partido
+     * en un solo hueco libre; si ninguno entra, corre hacia el primer hueco el
+     * tramo que le sigue, así los huecos se van juntando al final y aparecen
+     * lugares para los archivos partidos. No da el paso mientras haya pedidos
+     * en cola o una ronda en curso. Devuelve false cuando ya no queda nada
+     * que hacer.
+     */
+    boolean pasoDesfragmentacion() {
+        // El candado de escritura del buffer va antes que el del FileSystem, como en el write-back
+        return buffer.sinEscrituras(this::moverSiguienteArchivo);
+    }
+
+    private synchronized boolean moverSiguienteArchivo() {
+        // La ronda ya sacó sus pedidos de la cola, pero sigue usando los tramos fuera del candado
+        if (processingActive || hayProcesosPendientes()) {
+            return true;
+        }
+        HashMap<Integer, FileEntry> dueños = new HashMap<>();
+        LinkedHashMap<FileEntry, String> rutas = new LinkedHashMap<>();
+        indexarArchivos(root, "/", dueños, rutas);
+
+        for (Map.Entry<FileEntry, String> entrada : rutas.entrySet()) {
+            FileEntry file = entrada.getKey();
+            int partes = file.tramos.contarElementos();
+            if (partes < 2) {
+                continue;
+            }
+            Tramo nuevo = disk.reubicarContiguo(file.tramos, file.contarBloques(), file.name);
+            if (nuevo != null) {
+                ListaEnlazada<Tramo> nuevos = new ListaEnlazada<>();
+                nuevos.agregar(nuevo);
+                copiarBloques(file.tramos, nuevos);
+                file.tramos = nuevos;
+                archivosReubicados++;
+                AuditLog.registrarAccion("Sistema", "🧹 Juntó '" + entrada.getValue() + "' (" + partes + " tramos) en los bloques " + nuevo);
+                guardarEnArchivo();
+                return true;
+            }
+        }
+
+        // Los bloques sin dueño (relleno del buddy, reservas de un CREATE en cola) se quedan
+        // donde están: se corre el tramo que sigue al hueco después de ellos
+        FileEntry file = null;
+        Tramo tramo = null;
+        int hueco = disk.getPrimerLibre();
+        while (tramo == null) {
+            int siguiente = hueco < 0 ? disk.getTotalBlocks() : disk.getSiguienteUsado(hueco);
+            if (siguiente >= disk.getTotalBlocks()) {
+                return false; // Todo lo libre ya está junto al final
+            }
+            file = dueños.get(siguiente);
+            for (Nodo<Tramo> actual = file == null ? null : file.tramos.getCabeza(); actual != null; actual = actual.siguiente) {
+                if (actual.dato.inicio == siguiente) {
+                    tramo = actual.dato;
+                }
+            }
+            if (tramo == null) {
+                hueco = disk.getSiguienteLibre(siguiente);
+            }
+        }
+        // El buddy no acepta rangos sueltos: ahí se termina
+        if (!disk.moverTramo(tramo.inicio, tramo.longitud, hueco, file.name)) {
+            return false;
+        }
+        ListaEnlazada<Tramo> viejo = new ListaEnlazada<>();
+        viejo.agregar(new Tramo(tramo.inicio, tramo.longitud));
+        ListaEnlazada<Tramo> corrido = new ListaEnlazada<>();
+        corrido.agregar(new Tramo(hueco, tramo.longitud));
+        copiarBloques(viejo, corrido);
+        tramo.inicio = hueco;
+        file.unirTramosVecinos();
+        tramosCorridos++;
+        guardarEnArchivo();
+        return true;
+    }
+
+    // Dueño de cada tramo (por su primer bloque) y ruta completa de cada archivo
+    private void indexarArchivos(DirectoryEntry dir, String ruta, HashMap<Integer, FileEntry> dueños, LinkedHashMap<FileEntry, String> rutas) {
+        for (Nodo<FileEntry> archivo = dir.files.getCabeza(); archivo != null; archivo = archivo.siguiente) {
+            rutas.put(archivo.dato, ruta + archivo.dato.name);
+            for (Nodo<Tramo> actual = archivo.dato.tramos.getCabeza(); actual != null; actual = actual.siguiente) {
+                dueños.put(actual.dato.inicio, archivo.dato);
+            }
+        }
+        for (Nodo<DirectoryEntry> sub = dir.subDirectories.getCabeza(); sub != null; sub = sub.siguiente) {
+            indexarArchivos(sub.dato, ruta + sub.dato.name + "/", dueños, rutas);
+        }
+    }
+
+    /**
+     * Copia de los bloques movidos: se leen los tramos viejos y se escriben
+     * los nuevos en los discos (eso ocupa el disco como cualquier pedido), y
+     * los residentes del buffer pasan a su número nuevo en el mismo orden,
+     * de menor a mayor, así al correr un tramo hacia atrás ninguno pisa a
+     * otro que todavía no se movió.
+     */
+    private void copiarBloques(ListaEnlazada<Tramo> viejos, ListaEnlazada<Tramo> nuevos) {
+        atenderCopia(viejos);
+        atenderCopia(nuevos);
+        int[] origen = FileEntry.bloquesDe(viejos);
+        int[] destino = FileEntry.bloquesDe(nuevos);
+        for (int i = 0; i < origen.length; i++) {
+            buffer.reubicar(origen[i], destino[i]);
+        }
+        bloquesMovidos += origen.length;
+    }
+
+    private void atenderCopia(ListaEnlazada<Tramo> tramos) {
+        ListaEnlazada<Tramo>[] porDisco = repartir(tramos);
+        for (int d = 0; d < discos.length; d++) {
+            if (porDisco[d].getCabeza() != null) {
+                tiempoDesfragmentacionUs += discos[d].atenderFranjas(porDisco[d]);
+                planificadores[d].cabezalMovido();
+            }
+        }
+    }
+
+    // {archivos, tramos de archivos, archivos partidos, huecos libres, mayor hueco}
+    private int[] medirFragmentacion() {
+        int[] cuenta = new int[3];
+        contarTramosRecursivo(root, cuenta);
+        return new int[]{cuenta[0], cuenta[1], cuenta[2], disk.getHuecosLibres(), disk.getMayorHuecoLibre()};
+    }
+
+    /**
+     * Antes y después de la última desfragmentación (o hasta ahora, si
+     * sigue en curso). El ahorro esperado cuenta una búsqueda menos por cada
+     * tramo que se juntó, al leer una vez todos los archivos, con la búsqueda
+     * media del modelo de tiempos (un tercio del disco).
+     */
+    public synchronized String getResumenDesfragmentacion() {
+        if (fragmentacionAntes == null) {
+            return "   • Todavía no se desfragmentó\n";
+        }
+        int[] despues = fragmentacionDespues != null ? fragmentacionDespues : medirFragmentacion();
+        int busquedas = Math.max(0, fragmentacionAntes[1] - despues[1]);
+        long busquedaMediaUs = discos[0].getModeloTiempo().tiempoBusqueda(0, disk.getBloquesPorDisco() / 3);
+        return String.format("   • Estado: %s | %d archivos juntados, %d tramos corridos, %d bloques movidos (%.1f ms de disco)%n"
+                + "   • Tramos de archivos: %d → %d (archivos partidos: %d → %d)%n"
+                + "   • Huecos libres: %d → %d (el mayor: %d → %d bloques)%n"
+                + "   • Ahorro esperado: %d búsquedas menos por lectura completa (≈ %.1f ms)%n",
+                isDesfragmentando() ? "en curso" : "terminada", archivosReubicados, tramosCorridos, bloquesMovidos,
+                tiempoDesfragmentacionUs / 1000.0,
+                fragmentacionAntes[1], despues[1], fragmentacionAntes[2], despues[2],
+                fragmentacionAntes[3], despues[3], fragmentacionAntes[4], despues[4],
+                busquedas, busquedas * busquedaMediaUs / 1000.0);
+    }
+
+    private void contarTramosRecursivo(DirectoryEntry dir, int[] cuenta) {
+        for (Nodo<FileEntry> archivo = dir.files.getCabeza(); archivo != null; archivo = archivo.siguiente) {
+            int tramos = archivo.dato.tramos.contarElementos();
+            cuenta[0]++;
+            cuenta[1] += tramos;
+            if (tramos > 1) {
+                cuenta[2]++;
+            }
+        }
+        for (Nodo<DirectoryEntry> sub = dir.subDirectories.getCabeza(); sub != null; sub = sub.siguiente) {
+            contarTramosRecursivo(sub.dato, cuenta);
+        }
+    }
+
+    // Cola de comandos del disco: cada despacho saca un lote de hasta 'profundidad' pedidos reordenados
+    public void setProfundidadNCQ(int profundidad) {
+        this.profundidadNCQ = Math.max(1, profundidad);
+        for (DiskScheduler planificador : planificadores) {
+            planificador.setProfundidadNCQ(profundidadNCQ);
+        }
+        AuditLog.registrarAccion("Sistema", profundidadNCQ > 1
+                ? "📦 Activó NCQ con profundidad " + profundidadNCQ
+                : "📦 Desactivó NCQ");
+    }
+
+    // Reparte los despachos entre usuarios en lugar de atender la cola como un solo grupo
+    public void setColaJusta(boolean activa) {
+        for (ProcessQueue cola : colas) {
+            cola.setColaJusta(activa);
+        }
+        AuditLog.registrarAccion("Sistema", activa
+                ? "⚖️ Activó la cola justa por usuario (Administrador con peso " + ProcessQueue.PESO_ADMINISTRADOR + ")"
+                : "⚖️ Desactivó la cola justa por usuario");
+    }
+
     public void setCachePolicy(CachePolicy policy) {
         buffer.setPolicy(policy);
         AuditLog.registrarAccion("Sistema", "💾 Cambió política de buffer a " + policy);
     }
 
-    public void createFile(String path, String name, int size, String usuario) {
+    /**
+     * Write-back: los UPDATE solo ensucian bloques del buffer y el sistema se
+     * guarda una vez por lote (cada 'intervaloMs' o al llegar a 'marcaAlta'
+     * bloques sucios), en lugar de una vez por operación.
+     */
+    public void setWriteBack(boolean activo, long intervaloMs, int marcaAlta) {
+        if (activo) {
+            buffer.activarWriteBack(intervaloMs, marcaAlta, this::escribirLoteWriteBack);
+            AuditLog.registrarAccion("Sistema", "💾 Activó write-back (cada " + intervaloMs + " ms o " + marcaAlta + " bloques sucios)");
+        } else {
+            buffer.desactivarWriteBack();
+            AuditLog.registrarAccion("Sistema", "💾 Desactivó write-back (write-through)");
+        }
+    }
+
+    // Punto de durabilidad: escribe ya todo lo que el buffer tenga sucio
+    public void sync() {
+        buffer.sync();
+    }
+
+    /**
+     * Escribe el lote en el almacén del disco y lo sincroniza una sola vez.
+     * Un bloque solo se escribe si el archivo que hoy está en su ruta completa
+     * todavía lo tiene. Si se borró mientras esperaba, se descarta para no
+     * pisar al archivo que reusó ese lugar, aunque se llame igual en otro
+     * directorio.
+     */
+    private void escribirLoteWriteBack(CacheBlock[] lote) {
+        int escritos = 0;
+        synchronized (this) {
+            HashMap<String, FileEntry> archivos = new HashMap<>();
+            for (CacheBlock block : lote) {
+                String ruta = block.getFileName();
+                FileEntry dueño = ruta == null ? null : archivos.computeIfAbsent(ruta, this::archivoEnRuta);
+                if (dueño != null && dueño.contieneBloque(block.getBlockNumber())) {
+                    disk.escribirBloque(block.getBlockNumber(), block.getData());
+                    escritos++;
+                }
+            }
+            disk.forzarAlmacen();
+            guardarEnArchivo();
+        }
+        AuditLog.registrarAccion("Sistema", "💾 Write-back: " + escritos + " de " + lote.length + " bloques sucios escritos en un solo guardado");
+    }
+
+    public String getResumenAlmacen() {
+        return disk.getResumenAlmacen();
+    }
+
+    /**
+     * Encola la creación. Los bloques se reservan ya, así el pedido lleva su
+     * posición real en el disco y el planificador ordena sobre datos reales.
+     * Devuelve false (sin encolar) si no hay espacio.
+     */
+    public boolean createFile(String path, String name, int size, String usuario) {
+        ListaEnlazada<Tramo> reservados;
+        // El desfragmentador mueve tramos con el candado tomado: la reserva no se mete en medio
+        synchronized (this) {
+            reservados = disk.allocateBlocks(size, name);
+        }
+        if (reservados == null) {
+            AuditLog.registrarAccion(usuario, "❌ No se pudo crear '" + name + "': no hay " + size + " bloques libres");
+            JOptionPane.showMessageDialog(null, "❌ No hay suficiente espacio.", "Error", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
         IORequest request = new IORequest(Operation.CREATE, path, name, size);
-        request.setBlockPosition((int)(Math.random() * disk.getTotalBlocks()));
+        request.setBloquesReservados(reservados);
+        request.setBlockPosition(reservados.getCabeza() == null ? -1 : reservados.getCabeza().dato.inicio);
         IOProcess process = new IOProcess("CREATE_" + name, request, usuario);
-        processQueue.addProcess(process);
-        AuditLog.registrarAccion(usuario, "📋 Proceso P" + process.getId() + " creado para crear archivo '" + name + "'");
+        process.anulable = !existeArchivo(path, name);
+        encolarProceso(process, usuario, "crear archivo '" + name + "'");
+        return true;
     }
 
+    // Todo cambio al árbol va con el candado tomado: el write-back lo guarda desde su hilo.
+    // Los avisos se muestran después de soltarlo, para no frenar la cola mientras están abiertos.
     public void createDirectory(String path, String name, String usuario) {
-        DirectoryEntry dir = getDirectory(path);
-        if (dir != null) {
-            if (existeDirectorio(path, name)) {
-                JOptionPane.showMessageDialog(null, "❌ El directorio '" + name + "' ya existe en '" + path + "'.", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
+        String error = null;
+        synchronized (this) {
+            DirectoryEntry dir = getDirectory(path);
+            if (dir == null) {
+                error = "❌ El directorio '" + path + "' no existe.";
+            } else if (existeDirectorio(path, name)) {
+                error = "❌ El directorio '" + name + "' ya existe en '" + path + "'.";
+            } else {
+                DirectoryEntry newDir = new DirectoryEntry(name);
+                dir.addDirectory(newDir);
+                AuditLog.registrarAccion(usuario, "📂 Creó el directorio '" + name + "' en '" + path + "'");
+                guardarEnArchivo();
             }
-
-            DirectoryEntry newDir = new DirectoryEntry(name);
-            dir.addDirectory(newDir);
-            AuditLog.registrarAccion(usuario, "📂 Creó el directorio '" + name + "' en '" + path + "'");
-            guardarEnArchivo();
-        } else {
-            JOptionPane.showMessageDialog(null, "❌ El directorio '" + path + "' no existe.", "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        if (error != null) {
+            JOptionPane.showMessageDialog(null, error, "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
     public void deleteFile(String path, String name, String usuario) {
         IORequest request = new IORequest(Operation.DELETE, path, name);
-        request.setBlockPosition((int)(Math.random() * disk.getTotalBlocks()));
+        request.setBlockPosition(posicionDeArchivo(path, name));
         IOProcess process = new IOProcess("DELETE_" + name, request, usuario);
-        processQueue.addProcess(process);
-        AuditLog.registrarAccion(usuario, "📋 Proceso P" + process.getId() + " creado para eliminar archivo '" + name + "'");
+        encolarProceso(process, usuario, "eliminar archivo '" + name + "'");
     }
 
     public void updateFile(String path, String name, String newContent, String usuario) {
         IORequest request = new IORequest(Operation.UPDATE, path, name, newContent);
-        request.setBlockPosition((int)(Math.random() * disk.getTotalBlocks()));
+        request.setBlockPosition(posicionDeArchivo(path, name));
         IOProcess process = new IOProcess("UPDATE_" + name, request, usuario);
-        processQueue.addProcess(process);
-        AuditLog.registrarAccion(usuario, "📋 Proceso P" + process.getId() + " creado para actualizar archivo '" + name + "'");
+        encolarProceso(process, usuario, "actualizar archivo '" + name + "'");
+    }
+
+    public void readFile(String path, String name, String usuario) {
+        IORequest request = new IORequest(Operation.READ, path, name);
+        request.setBlockPosition(posicionDeArchivo(path, name));
+        IOProcess process = new IOProcess("READ_" + name, request, usuario);
+        encolarProceso(process, usuario, "leer archivo '" + name + "'");
+    }
+
+    // Primer bloque lógico del archivo (donde tiene que ir el cabezal), o -1 si
+    // el archivo todavía no existe: ubicar() lo pone donde está su CREATE pendiente
+    // o, si no hay ninguno, donde está el cabezal.
+    private int posicionDeArchivo(String path, String name) {
+        FileEntry file = buscarArchivo(path, name);
+        return file == null ? -1 : file.primerBloque();
+    }
+
+    /**
+     * Elige el disco que atiende el pedido (el del bloque donde empieza) y
+     * traduce la posición lógica a la posición dentro de ese disco. Los
+     * pedidos de un archivo con otros pendientes van a la misma cola y a la
+     * misma posición que el último de ellos, para que se fusionen y
+     * conserven su orden: empatados en posición, se atienden en orden de
+     * llegada. Vale también para un CREATE detrás de un DELETE pendiente,
+     * que si no podría salir antes y encontrar el archivo todavía ahí.
+     */
+    private void ubicar(IORequest request) {
+        int logico = request.getBlockPosition();
+        int disco = logico >= 0 ? disk.getDiscoDeBloque(logico) : 0;
+        String ruta = rutaCompleta(request.getPath(), request.getFileName());
+        int pendiente = -1;
+        for (int d = 0; d < colas.length && pendiente < 0; d++) {
+            pendiente = colas[d].posicionPendiente(ruta);
+            if (pendiente >= 0) {
+                disco = d;
+            }
+        }
+        request.setDisco(disco);
+        if (pendiente >= 0) {
+            request.setBlockPosition(pendiente);
+        } else {
+            request.setBlockPosition(logico >= 0 && disk.getDiscoDeBloque(logico) == disco
+                    ? disk.getBloqueFisico(logico) : planificadores[disco].getCurrentHead());
+        }
+    }
+
+    private FileEntry buscarArchivo(String path, String name) {
+        DirectoryEntry dir = getDirectory(path);
+        if (dir != null) {
+            Nodo<FileEntry> actual = dir.files.getCabeza();
+            while (actual != null) {
+                if (actual.dato.name.equals(name)) {
+                    return actual.dato;
+                }
+                actual = actual.siguiente;
+            }
+        }
+        return null;
+    }
+
+    // El archivo que hoy está en la ruta completa ("/docs/a.txt"), o null
+    private FileEntry archivoEnRuta(String ruta) {
+        int corte = ruta.lastIndexOf('/');
+        return buscarArchivo(ruta.substring(0, corte + 1), ruta.substring(corte + 1));
     }
 
+    /**
+     * Tramos que el pedido lee o escribe en cada disco, ya en posiciones de
+     * ese disco y en el orden del archivo. Un tramo lógico se parte en
+     * franjas, pero las franjas que caen en un mismo disco quedan seguidas
+     * y se vuelven a unir. DELETE solo toca metadatos.
+     */
+    private ListaEnlazada<Tramo>[] repartirTramos(IORequest request) {
+        ListaEnlazada<Tramo> tramos;
+        switch (request.getOperation()) {
+            case CREATE:
+                tramos = request.getBloquesReservados();
+                if (tramos == null) {
+                    ListaEnlazada<Tramo>[] porDisco = listasPorDisco();
+                    porDisco[request.getDisco()].agregar(new Tramo(request.getBlockPosition(), request.getFileSize()));
+                    return porDisco;
+                }
+                break;
+            case DELETE:
+                return listasPorDisco();
+            default:
+                FileEntry file = buscarArchivo(request.getPath(), request.getFileName());
+                if (file == null) {
+                    return listasPorDisco();
+                }
+                tramos = file.tramos;
+                break;
+        }
+        return repartir(tramos);
+    }
+
+    // Parte tramos lógicos en los tramos físicos de cada disco (franjas seguidas de un disco, unidas)
+    private ListaEnlazada<Tramo>[] repartir(ListaEnlazada<Tramo> tramos) {
+        ListaEnlazada<Tramo>[] porDisco = listasPorDisco();
+        Tramo[] ultimo = new Tramo[discos.length];
+        for (Nodo<Tramo> actual = tramos.getCabeza(); actual != null; actual = actual.siguiente) {
+            int b = actual.dato.inicio;
+            while (b < actual.dato.fin()) {
+                int finFranja = Math.min(actual.dato.fin(), (b / SimulatedDisk.UNIDAD_FRANJA + 1) * SimulatedDisk.UNIDAD_FRANJA);
+                int disco = disk.getDiscoDeBloque(b);
+                int fisico = disk.getBloqueFisico(b);
+                if (ultimo[disco] != null && ultimo[disco].fin() == fisico) {
+                    ultimo[disco].longitud += finFranja - b;
+                } else {
+                    ultimo[disco] = new Tramo(fisico, finFranja - b);
+                    porDisco[disco].agregar(ultimo[disco]);
+                }
+                b = finFranja;
+            }
+        }
+        return porDisco;
+    }
+
+    // Una lista vacía por disco
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ListaEnlazada<Tramo>[] listasPorDisco() {
+        ListaEnlazada<Tramo>[] porDisco = new ListaEnlazada[discos.length];
+        for (int d = 0; d < discos.length; d++) {
+            porDisco[d] = new ListaEnlazada<>();
+        }
+        return porDisco;
+    }
+
+    // Encola el proceso; la cola puede fusionarlo con otro pendiente del mismo archivo
+    private void encolarProceso(IOProcess process, String usuario, String descripcion) {
+        ubicar(process.getIoRequest());
+        IOProcess destino = colas[process.getIoRequest().getDisco()].addProcess(process);
+        String mensaje = "📋 Proceso P" + process.getId() + " creado para " + descripcion;
+        if (destino == null) {
+            // El CREATE anulado devuelve los bloques que había reservado
+            for (NodoDoble<IOProcess> actual = process.getAbsorbidos().getCabeza(); actual != null; actual = actual.siguiente) {
+                liberarReserva(actual.dato.getIoRequest());
+            }
+            mensaje += " (se anuló junto con el CREATE pendiente)";
+        } else if (destino != process) {
+            mensaje += " (fusionado con P" + destino.getId() + ")";
+        } else if (discos.length > 1) {
+            mensaje += " (disco " + process.getIoRequest().getDisco() + ")";
+        }
+        AuditLog.registrarAccion(usuario, mensaje);
+    }
+
+    /**
+     * Atiende el siguiente pedido. Con varios discos es una ronda: cada disco
+     * con pedidos pendientes atiende el siguiente de su cola en su propio
+     * trabajador, en paralelo, y se espera a que terminen todos.
+     */
     public void processNextIO() {
-        if (processingActive || processQueue.isEmpty()) {
-            return;
+        // Con el candado, para que configurarDiscos() no cambie los arreglos en medio de la ronda
+        synchronized (this) {
+            if (processingActive || !hayProcesosPendientes()) {
+                return;
+            }
+            processingActive = true;
+        }
+        try {
+            if (discos.length == 1) {
+                atenderSiguiente(0);
+            } else {
+                Future<?>[] ronda = new Future<?>[discos.length];
+                for (int d = 0; d < discos.length; d++) {
+                    if (!colas[d].isEmpty()) {
+                        int disco = d;
+                        ronda[d] = trabajadores.submit(() -> atenderSiguiente(disco));
+                    }
+                }
+                for (Future<?> tarea : ronda) {
+                    if (tarea == null) {
+                        continue;
+                    }
+                    try {
+                        tarea.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        } finally {
+            processingActive = false;
         }
+    }
 
-        processingActive = true;
-        IOProcess process = scheduler.scheduleNext(processQueue.getQueue());
-        
-        if (process != null) {
+    // Con NCQ el planificador entrega un lote ya ordenado y se atiende seguido
+    private void atenderSiguiente(int disco) {
+        for (IOProcess process : planificadores[disco].scheduleLote(colas[disco])) {
             process.setState(ProcessState.RUNNING);
             executeProcess(process);
         }
-        processingActive = false;
     }
 
     private void executeProcess(IOProcess process) {
         IORequest request = process.getIoRequest();
-        
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+
+        // El costo del pedido lo da el modelo de tiempos del disco (reloj simulado, sin dormir)
+        long servicio = atenderEnDisco(request);
+        // Los discos trabajan en paralelo, pero directorios y buffer se actualizan de a uno
+        String aviso;
+        synchronized (this) {
+            aviso = terminarProceso(process, servicio);
+        }
+        // El aviso se muestra en el hilo de la interfaz y sin el candado: un diálogo
+        // abierto no frena a los otros discos, al write-back ni al desfragmentador
+        if (aviso != null) {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, aviso, "Error", JOptionPane.ERROR_MESSAGE));
+        }
+    }
+
+    // Devuelve el aviso de error para el usuario, o null si todo salió bien
+    private String terminarProceso(IOProcess process, long servicio) {
+        IORequest request = process.getIoRequest();
+        String aviso = ejecutarOperacion(request, process);
+        process.setState(ProcessState.TERMINATED);
+        AuditLog.registrarAccion("Sistema", String.format("✅ Proceso P%d terminado (servicio %.2f ms)", process.getId(), servicio / 1000.0));
+
+        // Lote: los pedidos fusionados se atienden en este mismo despacho, sin otra espera
+        if (process.getLote() != null) {
+            for (NodoDoble<IOProcess> actual = process.getLote().getCabeza(); actual != null; actual = actual.siguiente) {
+                IOProcess fusionado = actual.dato;
+                fusionado.setState(ProcessState.RUNNING);
+                atenderEnDisco(fusionado.getIoRequest());
+                String avisoFusionado = ejecutarOperacion(fusionado.getIoRequest(), fusionado);
+                if (avisoFusionado != null) {
+                    aviso = aviso == null ? avisoFusionado : aviso + "\n" + avisoFusionado;
+                }
+                fusionado.setState(ProcessState.TERMINATED);
+                AuditLog.registrarAccion("Sistema", "✅ Proceso P" + fusionado.getId() + " terminado (en lote con P" + process.getId() + ")");
+            }
+        }
+        if (process.getAbsorbidos() != null) {
+            for (NodoDoble<IOProcess> actual = process.getAbsorbidos().getCabeza(); actual != null; actual = actual.siguiente) {
+                actual.dato.setState(ProcessState.TERMINATED);
+                AuditLog.registrarAccion("Sistema", "✅ Proceso P" + actual.dato.getId() + " terminado (fusionado con P" + process.getId() + ")");
+            }
+        }
+        return aviso;
+    }
+
+    /**
+     * Cobra el pedido en los discos: el suyo lo atiende desde su posición y
+     * los demás transfieren en paralelo las franjas del archivo que les
+     * tocan, con una búsqueda por tramo. El pedido termina con el último disco.
+     * Los otros discos no le cobran la búsqueda que sus planificadores dejaron
+     * pendiente, y sus planificadores se enteran de que el cabezal se movió.
+     */
+    private long atenderEnDisco(IORequest request) {
+        ListaEnlazada<Tramo>[] porDisco;
+        synchronized (this) {
+            porDisco = repartirTramos(request);
+            pedidosAtendidos++;
+        }
+        int propio = request.getDisco();
+        long servicio = porDisco[propio].getCabeza() == null
+                ? discos[propio].atender(request.getBlockPosition(), 0)
+                : discos[propio].atenderTramos(porDisco[propio]);
+        for (int d = 0; d < discos.length; d++) {
+            if (d != propio && porDisco[d].getCabeza() != null) {
+                servicio = Math.max(servicio, discos[d].atenderFranjas(porDisco[d]));
+                planificadores[d].cabezalMovido();
+            }
+        }
+        request.setTiempoServicio(servicio);
+        planificadores[propio].registrarServicio(servicio);
+        return servicio;
+    }
+
+    public boolean hayProcesosPendientes() {
+        for (ProcessQueue cola : colas) {
+            if (!cola.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getProcesosEnCola() {
+        int total = 0;
+        for (ProcessQueue cola : colas) {
+            total += cola.size();
+        }
+        return total;
+    }
+
+    // Pedidos pendientes de todos los discos (para mostrarlos en la interfaz)
+    public IOProcess[] getProcesos() {
+        if (colas.length == 1) {
+            return colas[0].getProcesos();
+        }
+        IOProcess[] todos = new IOProcess[0];
+        for (ProcessQueue cola : colas) {
+            IOProcess[] procesos = cola.getProcesos();
+            int inicio = todos.length;
+            todos = Arrays.copyOf(todos, inicio + procesos.length);
+            System.arraycopy(procesos, 0, todos, inicio, procesos.length);
+        }
+        return todos;
+    }
+
+    public int getFusionados() {
+        int total = 0;
+        for (ProcessQueue cola : colas) {
+            total += cola.getFusionados();
+        }
+        return total;
+    }
+
+    public int getAnulados() {
+        int total = 0;
+        for (ProcessQueue cola : colas) {
+            total += cola.getAnulados();
+        }
+        return total;
+    }
+
+    public long getDespachosPorVencimiento() {
+        long total = 0;
+        for (DiskScheduler planificador : planificadores) {
+            total += planificador.getDespachosPorVencimiento();
         }
+        return total;
+    }
+
+    public String getResumenClases() {
+        return porDisco(d -> colas[d].getResumenClases());
+    }
+
+    public String getResumenAnticipacion() {
+        return porDisco(d -> planificadores[d].getResumenAnticipacion());
+    }
+
+    public String getResumenNCQ() {
+        return porDisco(d -> planificadores[d].getResumenNCQ());
+    }
+
+    public String getResumenDesplazamiento() {
+        return porDisco(d -> planificadores[d].getResumenDesplazamiento());
+    }
+
+    public String getResumenTiempos() {
+        return porDisco(d -> discos[d].getResumenTiempos());
+    }
+
+    /**
+     * Utilización de cada disco: tiempo ocupado sobre el reloj del disco más
+     * cargado (el que marca cuándo termina el trabajo), y el rendimiento del
+     * arreglo en pedidos por segundo simulado.
+     */
+    public String getResumenDiscos() {
+        long fin = 0;
+        for (SimulatedDisk d : discos) {
+            fin = Math.max(fin, d.getRelojSimulado());
+        }
+        StringBuilder resumen = new StringBuilder();
+        for (int d = 0; d < discos.length; d++) {
+            long ocupado = discos[d].getServicioTotalUs();
+            resumen.append(String.format("   • Disco %d: %d pedidos, ocupado %.1f ms (%.1f%%), cabezal en %d%n",
+                    d, discos[d].getPedidosAtendidos(), ocupado / 1000.0,
+                    fin == 0 ? 0.0 : ocupado * 100.0 / fin, discos[d].getCabezal()));
+        }
+        long atendidos;
+        synchronized (this) {
+            atendidos = pedidosAtendidos;
+        }
+        resumen.append(String.format("   • Rendimiento: %d pedidos en %.1f ms simulados (%.1f pedidos/s)%n",
+                atendidos, fin / 1000.0, fin == 0 ? 0.0 : atendidos * 1_000_000.0 / fin));
+        return resumen.toString();
+    }
+
+    // Con un disco, el resumen tal cual; con varios, uno por disco
+    private String porDisco(IntFunction<String> resumen) {
+        if (discos.length == 1) {
+            return resumen.apply(0);
+        }
+        StringBuilder todos = new StringBuilder();
+        for (int d = 0; d < discos.length; d++) {
+            todos.append("   Disco ").append(d).append(":\n").append(resumen.apply(d));
+        }
+        return todos.toString();
+    }
 
+    private void liberarReserva(IORequest request) {
+        if (request.getBloquesReservados() != null) {
+            disk.releaseBlocks(request.getBloquesReservados());
+            request.setBloquesReservados(null);
+        }
+    }
+
+    // Con el candado tomado: no muestra diálogos, devuelve el aviso (o null)
+    private String ejecutarOperacion(IORequest request, IOProcess process) {
         switch (request.getOperation()) {
             case CREATE:
-                executeCreate(request, process);
-                break;
+                return executeCreate(request, process);
             case DELETE:
                 executeDelete(request, process);
                 break;
@@ -150,42 +966,43 @@ public class FileSystem {
                 executeRead(request, process);
                 break;
         }
-
-        process.setState(ProcessState.TERMINATED);
-        AuditLog.registrarAccion("Sistema", "✅ Proceso P" + process.getId() + " terminado");
+        return null;
     }
 
-    private void executeCreate(IORequest request, IOProcess process) {
+    private String executeCreate(IORequest request, IOProcess process) {
         DirectoryEntry dir = getDirectory(request.getPath());
         if (dir != null) {
             if (existeArchivo(request.getPath(), request.getFileName())) {
+                liberarReserva(request);
                 process.setState(ProcessState.BLOCKED);
-                JOptionPane.showMessageDialog(null, "❌ El archivo ya existe.", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
+                return "❌ El archivo ya existe.";
             }
 
-            ListaEnlazada<Integer> allocatedBlocks = disk.allocateBlocks(request.getFileSize(), request.getFileName());
+            // Normalmente los bloques ya se reservaron al encolar
+            ListaEnlazada<Tramo> allocatedBlocks = request.getBloquesReservados();
+            request.setBloquesReservados(null);
+            if (allocatedBlocks == null) {
+                allocatedBlocks = disk.allocateBlocks(request.getFileSize(), request.getFileName());
+            }
             if (allocatedBlocks != null) {
                 FileEntry file = new FileEntry(request.getFileName(), request.getFileSize());
-                file.blocks = allocatedBlocks;
+                file.tramos = allocatedBlocks;
                 dir.addFile(file);
                 
                 // ✅ CREATE: Todos los bloques nuevos son MISS
                 // Intentamos cargar tantos como quepan en el buffer
-                int totalBlocks = allocatedBlocks.contarElementos();
+                int totalBlocks = file.contarBloques();
                 int blocksLoaded = 0;
+                String ruta = rutaCompleta(request.getPath(), request.getFileName());
                 
-                Nodo<Integer> actualBlock = allocatedBlocks.getCabeza();
-                while (actualBlock != null) {
+                for (int bloque : file.bloques()) {
                     // Los bloques nuevos SIEMPRE son MISS (no pueden estar en cache)
                     // buffer.get() internamente ya incrementa misses
-                    buffer.get(actualBlock.dato); // MISS automático
+                    buffer.get(bloque); // MISS automático
                     
                     // Intentamos agregarlo al buffer
-                    buffer.put(actualBlock.dato, request.getFileName(), new byte[1024]);
+                    buffer.cargar(bloque, ruta);
                     blocksLoaded++;
-                    
-                    actualBlock = actualBlock.siguiente;
                 }
                 
                 // Calculamos cuántos bloques realmente quedaron en el buffer
@@ -199,9 +1016,13 @@ public class FileSystem {
                 guardarEnArchivo();
             } else {
                 process.setState(ProcessState.BLOCKED);
-                JOptionPane.showMessageDialog(null, "❌ No hay suficiente espacio.", "Error", JOptionPane.ERROR_MESSAGE);
+                return "❌ No hay suficiente espacio.";
             }
+        } else {
+            // El directorio desapareció mientras el pedido esperaba
+            liberarReserva(request);
         }
+        return null;
     }
 
     private void executeDelete(IORequest request, IOProcess process) {
@@ -211,8 +1032,8 @@ public class FileSystem {
             while (actual != null) {
                 if (actual.dato.name.equals(request.getFileName())) {
                     // DELETE: Solo limpiamos el buffer, no contamos hits/misses
-                    limpiarArchivoDellBuffer(actual.dato);
-                    disk.releaseBlocks(actual.dato.blocks);
+                    buffer.invalidarArchivo(rutaCompleta(request.getPath(), request.getFileName()));
+                    disk.releaseBlocks(actual.dato.tramos);
                     dir.files.eliminar(actual.dato);
                     AuditLog.registrarAccion(process.getUsuario(), "🗑 Eliminó el archivo '" + request.getFileName() + "'");
                     guardarEnArchivo();
@@ -237,25 +1058,25 @@ public class FileSystem {
                     int misses = 0;
                     
                     // Recorremos CADA bloque del archivo
-                    Nodo<Integer> actualBlock = actual.dato.blocks.getCabeza();
-                    while (actualBlock != null) {
+                    String ruta = rutaCompleta(request.getPath(), request.getFileName());
+                    for (int bloque : actual.dato.bloques()) {
                         // ⚡ CLAVE: Verificamos si ESTE bloque específico está en buffer
-                        CacheBlock cached = buffer.get(actualBlock.dato);
+                        CacheBlock cached = buffer.get(bloque);
                         
                         if (cached != null) {
                             // ✅ HIT: Este bloque específico SÍ estaba en buffer
                             // buffer.get() ya incrementó hits automáticamente
                             cached.setData(request.getContent().getBytes());
+                            buffer.marcarSucio(cached);
                             hits++;
                         } else {
                             // ✅ MISS: Este bloque específico NO estaba en buffer
                             // buffer.get() ya incrementó misses automáticamente
                             // Ahora lo cargamos
-                            buffer.put(actualBlock.dato, request.getFileName(), request.getContent().getBytes());
+                            CacheBlock nuevo = buffer.put(bloque, ruta, request.getContent().getBytes());
+                            buffer.marcarSucio(nuevo);
                             misses++;
                         }
-                        
-                        actualBlock = actualBlock.siguiente;
                     }
                     
                     // Generamos el mensaje apropiado según los resultados
@@ -274,9 +1095,21 @@ public class FileSystem {
                         cacheStatus = " (archivo vacío)";
                     }
                     
+                    if (buffer.isWriteBack()) {
+                        // El guardado lo hará el WriteBackFlusher junto con los demás bloques sucios
+                        cacheStatus += String.format(" [write-back: %d bloques sucios pendientes]", buffer.getBloquesSucios());
+                    }
                     AuditLog.registrarAccion(process.getUsuario(), 
                         "✏️ Actualizó el archivo '" + request.getFileName() + "'" + cacheStatus);
-                    guardarEnArchivo();
+                    if (!buffer.isWriteBack()) {
+                        // Write-through: el contenido va ya al almacén del disco
+                        byte[] datos = request.getContent().getBytes();
+                        for (int bloque : actual.dato.bloques()) {
+                            disk.escribirBloque(bloque, datos);
+                        }
+                        disk.forzarAlmacen();
+                        guardarEnArchivo();
+                    }
                     return;
                 }
                 actual = actual.siguiente;
@@ -293,22 +1126,29 @@ public class FileSystem {
                     // ✅ READ: Similar a UPDATE, pero sin modificar contenido
                     int hits = 0;
                     int misses = 0;
+                    int precargados = 0;
                     
-                    Nodo<Integer> actualBlock = actual.dato.blocks.getCabeza();
-                    while (actualBlock != null) {
+                    String ruta = rutaCompleta(request.getPath(), request.getFileName());
+                    int[] bloques = actual.dato.bloques();
+                    for (int i = 0; i < bloques.length; i++) {
                         // Verificamos si el bloque está en buffer
-                        CacheBlock cached = buffer.get(actualBlock.dato);
+                        CacheBlock cached = buffer.get(bloques[i]);
                         
                         if (cached != null) {
-                            // HIT: El bloque ya estaba en buffer
+                            // HIT: El bloque ya estaba en buffer (quizá traído por read-ahead)
                             hits++;
                         } else {
                             // MISS: El bloque NO estaba en buffer, lo cargamos
-                            buffer.put(actualBlock.dato, request.getFileName(), new byte[1024]);
+                            buffer.cargar(bloques[i], ruta);
                             misses++;
+                            
+                            // 📚 Read-ahead: FileEntry.tramos ya dice qué bloques siguen,
+                            // así que el fallo trae de una vez los próximos N
+                            int n = Math.min(buffer.getVentanaReadAhead(), bloques.length - i - 1);
+                            if (n > 0) {
+                                precargados += buffer.precargar(Arrays.copyOfRange(bloques, i + 1, i + 1 + n), ruta);
+                            }
                         }
-                        
-                        actualBlock = actualBlock.siguiente;
                     }
                     
                     String cacheStatus;
@@ -319,6 +1159,9 @@ public class FileSystem {
                     } else {
                         cacheStatus = String.format(" (%d MISSes - lectura completa desde disco)", misses);
                     }
+                    if (precargados > 0) {
+                        cacheStatus += String.format(" [read-ahead: %d bloques precargados]", precargados);
+                    }
                     
                     AuditLog.registrarAccion(process.getUsuario(), 
                         "📖 Leyó el archivo '" + request.getFileName() + "'" + cacheStatus);
@@ -329,6 +1172,22 @@ public class FileSystem {
         }
     }
 
+    // Ruta normalizada ("/docs/a.txt") con la que el buffer identifica los bloques de un archivo
+    static String rutaCompleta(String path, String name) {
+        return rutaDirectorio(path) + name;
+    }
+
+    // "/", "docs" y "/docs/" quedan como "/" y "/docs/"
+    private static String rutaDirectorio(String path) {
+        StringBuilder ruta = new StringBuilder("/");
+        for (String parte : path.split("/")) {
+            if (!parte.isEmpty()) {
+                ruta.append(parte).append('/');
+            }
+        }
+        return ruta.toString();
+    }
+
     private DirectoryEntry getDirectory(String path) {
         if (path.equals("/")) {
             return root;
@@ -396,8 +1255,8 @@ public class FileSystem {
 
     public int obtenerPrimerBloqueDirectorio(DirectoryEntry dir) {
         Nodo<FileEntry> archivos = dir.files.getCabeza();
-        if (archivos != null && archivos.dato.blocks.getCabeza() != null) {
-            return archivos.dato.blocks.obtener(0);
+        if (archivos != null && archivos.dato.primerBloque() >= 0) {
+            return archivos.dato.primerBloque();
         }
 
         Nodo<DirectoryEntry> subdirs = dir.subDirectories.getCabeza();
@@ -410,7 +1269,7 @@ public class FileSystem {
         return -1;
     }
 
-    public void guardarEnArchivo() {
+    public synchronized void guardarEnArchivo() {
         try (FileWriter writer = new FileWriter(FILE_NAME)) {
             Gson gson = new GsonBuilder().setPrettyPrinting().create();
             gson.toJson(root, writer);
@@ -432,6 +1291,8 @@ public class FileSystem {
             
             disk.cargarEstadoDisco();
             reconstruirMapaDeArchivos(root);
+            // Las reservas de CREATEs que no llegaron a ejecutarse no sobreviven al reinicio
+            disk.liberarBloquesSinArchivo();
         } catch (JsonSyntaxException | IOException e) {
             e.printStackTrace();
         }
@@ -444,6 +1305,10 @@ public class FileSystem {
         if (dir.subDirectories == null) {
             dir.subDirectories = new ListaEnlazada<>();
         }
+        // filesystem.json viejo: los bloques sueltos pasan a tramos
+        for (Nodo<FileEntry> archivo = dir.files.getCabeza(); archivo != null; archivo = archivo.siguiente) {
+            archivo.dato.migrarBloques();
+        }
 
         Nodo<DirectoryEntry> actual = dir.subDirectories.getCabeza();
         while (actual != null) {
@@ -456,10 +1321,8 @@ public class FileSystem {
         Nodo<FileEntry> actualArchivo = dir.files.getCabeza();
         while (actualArchivo != null) {
             FileEntry file = actualArchivo.dato;
-            Nodo<Integer> actualBloque = file.blocks.getCabeza();
-            while (actualBloque != null) {
-                disk.registrarArchivoEnBloque(actualBloque.dato, file.name);
-                actualBloque = actualBloque.siguiente;
+            for (int bloque : file.bloques()) {
+                disk.registrarArchivoEnBloque(bloque, file.name);
             }
             actualArchivo = actualArchivo.siguiente;
         }
@@ -471,28 +1334,6 @@ public class FileSystem {
         }
     }
 
-    private void limpiarArchivoDellBuffer(FileEntry file) {
-        Nodo<Integer> actualBlock = file.blocks.getCabeza();
-        while (actualBlock != null) {
-            buffer.getCache().remove(actualBlock.dato);
-            actualBlock = actualBlock.siguiente;
-        }
-    }
-
-    private void limpiarDirectorioDelBuffer(DirectoryEntry dir) {
-        Nodo<FileEntry> actualArchivo = dir.files.getCabeza();
-        while (actualArchivo != null) {
-            limpiarArchivoDellBuffer(actualArchivo.dato);
-            actualArchivo = actualArchivo.siguiente;
-        }
-
-        Nodo<DirectoryEntry> actualDir = dir.subDirectories.getCabeza();
-        while (actualDir != null) {
-            limpiarDirectorioDelBuffer(actualDir.dato);
-            actualDir = actualDir.siguiente;
-        }
-    }
-
     public String restoreFile(String fileName, String backupFile) {
         return BackupManager.restaurarVersion(fileName, backupFile);
     }
@@ -503,46 +1344,72 @@ public class FileSystem {
     }
 
     public void moverArchivo(String pathOrigen, String fileName, String pathDestino, String usuario) {
-        DirectoryEntry origen = getDirectory(pathOrigen);
-        DirectoryEntry destino = getDirectory(pathDestino);
+        DirectoryEntry origen;
+        DirectoryEntry destino;
+        synchronized (this) {
+            origen = getDirectory(pathOrigen);
+            destino = getDirectory(pathDestino);
+        }
 
         if (origen == null || destino == null) {
             JOptionPane.showMessageDialog(null, "❌ Directorio no encontrado.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
+        // El candado de escritura del buffer va antes que el del FileSystem, como en el write-back:
+        // así ningún lote con la ruta vieja queda a medio escribir mientras se mueve
+        boolean movido = buffer.sinEscrituras(() -> moverEntrada(origen, destino, pathOrigen, fileName, pathDestino, usuario));
+        if (!movido) {
+            JOptionPane.showMessageDialog(null, "❌ Archivo no encontrado.", "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private synchronized boolean moverEntrada(DirectoryEntry origen, DirectoryEntry destino, String pathOrigen,
+                                              String fileName, String pathDestino, String usuario) {
         Nodo<FileEntry> actual = origen.files.getCabeza();
         while (actual != null) {
             if (actual.dato.name.equals(fileName)) {
                 origen.files.eliminar(actual.dato);
                 destino.addFile(actual.dato);
+                // Los bloques no cambian: el buffer solo actualiza la ruta de los residentes
+                buffer.renombrarArchivo(rutaCompleta(pathOrigen, fileName), rutaCompleta(pathDestino, fileName));
                 AuditLog.registrarAccion(usuario, "📂 Movió el archivo '" + fileName + "' a '" + pathDestino + "'");
                 guardarEnArchivo();
-                return;
+                return true;
             }
             actual = actual.siguiente;
         }
-
-        JOptionPane.showMessageDialog(null, "❌ Archivo no encontrado.", "Error", JOptionPane.ERROR_MESSAGE);
+        return false;
     }
 
     public void borrarTodo() {
-        limpiarDirectorioDelBuffer(root);
-        liberarBloquesRecursivo(root);
-        
-        root = new DirectoryEntry("root");
-        disk.limpiarCompletamente();
-        processQueue = new ProcessQueue();
-        buffer.clear();
-        
-        guardarEnArchivo();
-        disk.guardarEstadoDisco();
+        // Sin candados tomados: un paso en curso del desfragmentador los necesita para terminar
+        detenerDesfragmentacion();
+        buffer.sinEscrituras(() -> {
+            synchronized (this) {
+                buffer.invalidarPrefijo(rutaDirectorio("/"));
+                liberarBloquesRecursivo(root);
+
+                root = new DirectoryEntry("root");
+                disk.limpiarCompletamente();
+                for (int d = 0; d < colas.length; d++) {
+                    boolean colaJusta = colas[d].isColaJusta();
+                    colas[d] = new ProcessQueue();
+                    colas[d].setColaJusta(colaJusta);
+                }
+                buffer.clear();
+
+                guardarEnArchivo();
+                disk.guardarEstadoDisco();
+            }
+            return true;
+        });
     }
 
     private void liberarBloquesRecursivo(DirectoryEntry dir) {
         Nodo<FileEntry> actualArchivo = dir.files.getCabeza();
         while (actualArchivo != null) {
-            disk.releaseBlocks(actualArchivo.dato.blocks);
+            disk.releaseBlocks(actualArchivo.dato.tramos);
             actualArchivo = actualArchivo.siguiente;
         }
 
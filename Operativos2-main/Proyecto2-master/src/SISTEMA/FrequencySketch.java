@@ -0,0 +1,75 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+/**
+ * Count-min sketch con contadores saturados en 15, usado por W-TinyLFU para
+ * estimar cuántas veces se ha pedido un bloque sin guardar un contador por
+ * bloque. Tras 10 x capacidad incrementos todos los contadores se dividen
+ * entre dos, de modo que la popularidad antigua se va olvidando.
+ */
+class FrequencySketch {
+    private static final int FILAS = 4;
+    private static final int MAXIMO = 15;
+    private static final int[] SEMILLAS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private int[] contadores;
+    private int ancho; // Potencia de dos
+    private int tamañoMuestra;
+    private int incrementos;
+
+    FrequencySketch(int capacidad) {
+        int minimo = Math.max(16, capacidad * 4);
+        this.ancho = Integer.highestOneBit(minimo - 1) << 1;
+        this.contadores = new int[FILAS * ancho];
+        this.tamañoMuestra = Math.max(10, capacidad * 10);
+        this.incrementos = 0;
+    }
+
+    void incrementar(int blockNumber) {
+        boolean cambio = false;
+        for (int fila = 0; fila < FILAS; fila++) {
+            int i = indice(blockNumber, fila);
+            if (contadores[i] < MAXIMO) {
+                contadores[i]++;
+                cambio = true;
+            }
+        }
+        if (cambio && ++incrementos >= tamañoMuestra) {
+            reiniciar();
+        }
+    }
+
+    int estimar(int blockNumber) {
+        int minimo = MAXIMO;
+        for (int fila = 0; fila < FILAS; fila++) {
+            minimo = Math.min(minimo, contadores[indice(blockNumber, fila)]);
+        }
+        return minimo;
+    }
+
+    void vaciar() {
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] = 0;
+        }
+        incrementos = 0;
+    }
+
+    // Envejecimiento: divide todos los contadores entre dos
+    private void reiniciar() {
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] >>>= 1;
+        }
+        incrementos /= 2;
+    }
+
+    private int indice(int blockNumber, int fila) {
+        int h = (blockNumber + SEMILLAS[fila]) * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return fila * ancho + (h & (ancho - 1));
+    }
+}
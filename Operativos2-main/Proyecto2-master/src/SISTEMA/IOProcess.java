@@ -4,6 +4,9 @@
  */
 package SISTEMA;
 
+import EDD.ListaDoble;
+import EDD.NodoDoble;
+
 public class IOProcess {
     private static int nextId = 1;
     private int id;
@@ -11,6 +14,18 @@ public class IOProcess {
     private ProcessState state;
     private IORequest ioRequest;
     private String usuario;
+    // Nodos del proceso en la ProcessQueue y en su ColaUsuario; null si no está en cola
+    NodoDoble<IOProcess> nodoLlegada;
+    NodoDoble<IOProcess> nodoPosicion;
+    NodoDoble<IOProcess> nodoOperacion; // En la cola de vencimiento de lecturas o de escrituras
+    NodoDoble<IOProcess> nodoClase; // Orden de llegada dentro de su ColaUsuario
+    ColaUsuario cola;
+    private long tiempoEncolado; // Momento en que entró a la cola (ms)
+    // Fusión en la ProcessQueue: 'lote' se ejecuta justo después de este proceso en el mismo
+    // despacho; 'absorbidos' terminan junto con él sin ejecutarse (su efecto ya está incluido)
+    private ListaDoble<IOProcess> lote;
+    private ListaDoble<IOProcess> absorbidos;
+    boolean anulable; // CREATE de un archivo que no existe: un DELETE posterior lo anula
 
     public IOProcess(String name, IORequest ioRequest, String usuario) {
         this.id = nextId++;
@@ -44,6 +59,47 @@ public class IOProcess {
         return usuario;
     }
 
+    public long getTiempoEncolado() {
+        return tiempoEncolado;
+    }
+
+    void setTiempoEncolado(long tiempoEncolado) {
+        this.tiempoEncolado = tiempoEncolado;
+    }
+
+    void agregarAlLote(IOProcess process) {
+        if (lote == null) {
+            lote = new ListaDoble<>();
+        }
+        lote.agregarAlFinal(process);
+    }
+
+    void absorber(IOProcess process) {
+        if (absorbidos == null) {
+            absorbidos = new ListaDoble<>();
+        }
+        absorbidos.agregarAlFinal(process);
+    }
+
+    // Procesos que se ejecutan en el mismo despacho, después de este (puede ser null)
+    public ListaDoble<IOProcess> getLote() {
+        return lote;
+    }
+
+    // Procesos que se completan con este sin ejecutarse (puede ser null)
+    public ListaDoble<IOProcess> getAbsorbidos() {
+        return absorbidos;
+    }
+
+    boolean tieneFusionados() {
+        return lote != null || absorbidos != null;
+    }
+
+    // Las lecturas y las escrituras (CREATE/UPDATE/DELETE) tienen plazos distintos en DEADLINE
+    public boolean esLectura() {
+        return ioRequest.getOperation() == Operation.READ;
+    }
+
     @Override
     public String toString() {
         return "P" + id + " [" + state + "] - " + ioRequest.getOperation();
@@ -4,6 +4,9 @@
  */
 package SISTEMA;
 
+import EDD.ListaEnlazada;
+import EDD.Tramo;
+
 public class IORequest {
     private Operation operation;
     private String path;
@@ -11,6 +14,9 @@ public class IORequest {
     private int fileSize;
     private String content;
     private int blockPosition;
+    private ListaEnlazada<Tramo> bloquesReservados; // CREATE: bloques apartados al encolar
+    private int disco; // Disco del arreglo RAID-0 que lo atiende; blockPosition es la posición dentro de él
+    private long tiempoServicio; // µs simulados que tardó el disco en atenderlo (0 = pendiente)
 
     public IORequest(Operation operation, String path, String fileName, int fileSize) {
         this.operation = operation;
@@ -55,6 +61,11 @@ public class IORequest {
         return content;
     }
 
+    // Solo para la fusión de UPDATEs en la ProcessQueue: vale el último contenido
+    void setContent(String content) {
+        this.content = content;
+    }
+
     public int getBlockPosition() {
         return blockPosition;
     }
@@ -62,4 +73,28 @@ public class IORequest {
     public void setBlockPosition(int blockPosition) {
         this.blockPosition = blockPosition;
     }
+
+    public ListaEnlazada<Tramo> getBloquesReservados() {
+        return bloquesReservados;
+    }
+
+    void setBloquesReservados(ListaEnlazada<Tramo> bloquesReservados) {
+        this.bloquesReservados = bloquesReservados;
+    }
+
+    public int getDisco() {
+        return disco;
+    }
+
+    void setDisco(int disco) {
+        this.disco = disco;
+    }
+
+    public long getTiempoServicio() {
+        return tiempoServicio;
+    }
+
+    void setTiempoServicio(long tiempoServicio) {
+        this.tiempoServicio = tiempoServicio;
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Índice inverso del BufferCache: ruta del archivo -> bloques residentes.
+ * Lo mantienen los segmentos al insertar, expulsar o descartar bloques, así
+ * que borrar un archivo (o un directorio completo, por prefijo de ruta)
+ * cuesta lo mismo que sus bloques en el buffer, sin recorrer listas.
+ */
+class IndiceArchivos {
+    private TreeMap<String, HashSet<Integer>> bloques;
+
+    IndiceArchivos() {
+        this.bloques = new TreeMap<>();
+    }
+
+    synchronized void agregar(String archivo, int blockNumber) {
+        if (archivo == null) {
+            return;
+        }
+        bloques.computeIfAbsent(archivo, k -> new HashSet<>()).add(blockNumber);
+    }
+
+    synchronized void quitar(String archivo, int blockNumber) {
+        if (archivo == null) {
+            return;
+        }
+        HashSet<Integer> residentes = bloques.get(archivo);
+        if (residentes != null && residentes.remove(blockNumber) && residentes.isEmpty()) {
+            bloques.remove(archivo);
+        }
+    }
+
+    // Saca del índice los bloques del archivo y los devuelve
+    synchronized int[] sacarArchivo(String archivo) {
+        HashSet<Integer> residentes = bloques.remove(archivo);
+        return residentes == null ? new int[0] : aArreglo(residentes);
+    }
+
+    // Igual que sacarArchivo, pero para todos los archivos cuya ruta empieza con 'prefijo'
+    synchronized int[] sacarPrefijo(String prefijo) {
+        NavigableMap<String, HashSet<Integer>> rango = bloques.subMap(prefijo, true, prefijo + Character.MAX_VALUE, true);
+        int total = 0;
+        for (HashSet<Integer> residentes : rango.values()) {
+            total += residentes.size();
+        }
+        int[] resultado = new int[total];
+        int i = 0;
+        for (Map.Entry<String, HashSet<Integer>> entrada : rango.entrySet()) {
+            for (int blockNumber : entrada.getValue()) {
+                resultado[i++] = blockNumber;
+            }
+        }
+        rango.clear();
+        return resultado;
+    }
+
+    synchronized int archivos() {
+        return bloques.size();
+    }
+
+    synchronized void vaciar() {
+        bloques.clear();
+    }
+
+    private static int[] aArreglo(HashSet<Integer> residentes) {
+        int[] resultado = new int[residentes.size()];
+        int i = 0;
+        for (int blockNumber : residentes) {
+            resultado[i++] = blockNumber;
+        }
+        return resultado;
+    }
+}
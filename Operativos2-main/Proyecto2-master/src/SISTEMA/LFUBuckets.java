@@ -0,0 +1,138 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import EDD.ListaDoble;
+import EDD.NodoDoble;
+
+/**
+ * Estructura O(1) para la política LFU del BufferCache.
+ * Los bloques se agrupan en cubetas por frecuencia, ordenadas de menor a mayor.
+ * Dentro de cada cubeta la cabeza es el bloque usado hace más tiempo, así que
+ * la víctima es siempre la cabeza de la primera cubeta (empates por LRU).
+ * Cada cierto número de accesos todas las frecuencias se dividen entre dos
+ * para que un bloque que fue muy usado no se quede fijo en el buffer.
+ */
+class LFUBuckets {
+
+    static class Cubeta {
+        int frecuencia;
+        ListaDoble<CacheBlock> bloques;
+        NodoDoble<Cubeta> nodo;
+
+        Cubeta(int frecuencia) {
+            this.frecuencia = frecuencia;
+            this.bloques = new ListaDoble<>();
+        }
+    }
+
+    private ListaDoble<Cubeta> cubetas;
+    private int intervaloEnvejecimiento;
+    private int accesosDesdeEnvejecimiento;
+
+    LFUBuckets(int intervaloEnvejecimiento) {
+        this.cubetas = new ListaDoble<>();
+        this.intervaloEnvejecimiento = Math.max(1, intervaloEnvejecimiento);
+        this.accesosDesdeEnvejecimiento = 0;
+    }
+
+    void insertar(CacheBlock block) {
+        NodoDoble<Cubeta> primera = cubetas.getCabeza();
+        Cubeta destino;
+        if (primera != null && primera.dato.frecuencia == 1) {
+            destino = primera.dato;
+        } else {
+            destino = new Cubeta(1);
+            destino.nodo = cubetas.agregarAlInicio(destino);
+        }
+        block.cubeta = destino;
+        block.nodo = destino.bloques.agregarAlFinal(block);
+        registrarAcceso();
+    }
+
+    void incrementar(CacheBlock block) {
+        Cubeta actual = block.cubeta;
+        int nuevaFrecuencia = actual.frecuencia + 1;
+        NodoDoble<Cubeta> siguiente = actual.nodo.siguiente;
+
+        Cubeta destino;
+        if (siguiente != null && siguiente.dato.frecuencia == nuevaFrecuencia) {
+            destino = siguiente.dato;
+        } else {
+            destino = new Cubeta(nuevaFrecuencia);
+            destino.nodo = cubetas.insertarDespues(actual.nodo, destino);
+        }
+
+        actual.bloques.quitar(block.nodo);
+        destino.bloques.enlazarAlFinal(block.nodo);
+        block.cubeta = destino;
+        if (actual.bloques.estaVacia()) {
+            cubetas.quitar(actual.nodo);
+        }
+        registrarAcceso();
+    }
+
+    void quitar(CacheBlock block) {
+        Cubeta actual = block.cubeta;
+        if (actual == null) {
+            return;
+        }
+        actual.bloques.quitar(block.nodo);
+        if (actual.bloques.estaVacia()) {
+            cubetas.quitar(actual.nodo);
+        }
+        block.nodo = null;
+        block.cubeta = null;
+    }
+
+    // Bloque menos frecuente (y, entre iguales, el menos reciente), o null si no hay
+    CacheBlock victima() {
+        NodoDoble<Cubeta> primera = cubetas.getCabeza();
+        return primera == null ? null : primera.dato.bloques.getCabeza().dato;
+    }
+
+    int frecuencia(CacheBlock block) {
+        return block.cubeta == null ? 0 : block.cubeta.frecuencia;
+    }
+
+    void vaciar() {
+        cubetas.vaciar();
+        accesosDesdeEnvejecimiento = 0;
+    }
+
+    private void registrarAcceso() {
+        accesosDesdeEnvejecimiento++;
+        if (accesosDesdeEnvejecimiento >= intervaloEnvejecimiento) {
+            envejecer();
+            accesosDesdeEnvejecimiento = 0;
+        }
+    }
+
+    // Divide todas las frecuencias entre dos. Como la división conserva el orden,
+    // basta con fusionar cubetas vecinas que terminen con la misma frecuencia.
+    private void envejecer() {
+        Cubeta anterior = null;
+        NodoDoble<Cubeta> actual = cubetas.getCabeza();
+        while (actual != null) {
+            NodoDoble<Cubeta> siguiente = actual.siguiente;
+            Cubeta cubeta = actual.dato;
+            cubeta.frecuencia = Math.max(1, cubeta.frecuencia / 2);
+
+            if (anterior != null && anterior.frecuencia == cubeta.frecuencia) {
+                NodoDoble<CacheBlock> nodoBloque = cubeta.bloques.quitarPrimero();
+                while (nodoBloque != null) {
+                    anterior.bloques.enlazarAlFinal(nodoBloque);
+                    nodoBloque.dato.cubeta = anterior;
+                    nodoBloque = cubeta.bloques.quitarPrimero();
+                }
+                cubetas.quitar(actual);
+            } else {
+                anterior = cubeta;
+            }
+            actual = siguiente;
+        }
+        System.out.println("💾 Buffer LFU: frecuencias envejecidas (divididas entre 2)");
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de bloques libres: un bit por bloque en palabras de 64 bits (1 =
+ * usado) y un contador de libres. Las búsquedas del siguiente libre o usado
+ * saltan palabras enteras llenas o vacías, así que cuestan O(bloques / 64)
+ * en el peor caso aunque el disco esté casi lleno.
+ */
+class MapaBits {
+    private final long[] palabras;
+    private final int tamaño;
+    private int libres;
+
+    MapaBits(int tamaño) {
+        this.palabras = new long[(tamaño + 63) >>> 6];
+        this.tamaño = tamaño;
+        this.libres = tamaño;
+    }
+
+    int getTamaño() {
+        return tamaño;
+    }
+
+    int getLibres() {
+        return libres;
+    }
+
+    boolean estaUsado(int bloque) {
+        return (palabras[bloque >>> 6] & (1L << bloque)) != 0;
+    }
+
+    // Devuelve false si ya estaba usado
+    boolean marcar(int bloque) {
+        if (estaUsado(bloque)) {
+            return false;
+        }
+        palabras[bloque >>> 6] |= 1L << bloque;
+        libres--;
+        return true;
+    }
+
+    // Devuelve false si ya estaba libre
+    boolean liberar(int bloque) {
+        if (!estaUsado(bloque)) {
+            return false;
+        }
+        palabras[bloque >>> 6] &= ~(1L << bloque);
+        libres++;
+        return true;
+    }
+
+    // Primer bloque libre en [desde, tamaño), o -1
+    int siguienteLibre(int desde) {
+        if (desde >= tamaño) {
+            return -1;
+        }
+        int i = desde >>> 6;
+        long palabra = ~palabras[i] & (-1L << desde);
+        while (palabra == 0) {
+            if (++i == palabras.length) {
+                return -1;
+            }
+            palabra = ~palabras[i];
+        }
+        int bloque = (i << 6) + Long.numberOfTrailingZeros(palabra);
+        return bloque < tamaño ? bloque : -1;
+    }
+
+    // Primer bloque usado en [desde, tamaño), o 'tamaño' si no hay
+    int siguienteUsado(int desde) {
+        if (desde >= tamaño) {
+            return tamaño;
+        }
+        int i = desde >>> 6;
+        long palabra = palabras[i] & (-1L << desde);
+        while (palabra == 0) {
+            if (++i == palabras.length) {
+                return tamaño;
+            }
+            palabra = palabras[i];
+        }
+        return Math.min(tamaño, (i << 6) + Long.numberOfTrailingZeros(palabra));
+    }
+
+    void limpiar() {
+        Arrays.fill(palabras, 0L);
+        libres = tamaño;
+    }
+
+    // Formato de disk.json y de la interfaz: un boolean por bloque
+    boolean[] aArreglo() {
+        boolean[] mapa = new boolean[tamaño];
+        for (int b = siguienteUsado(0); b < tamaño; b = siguienteUsado(b + 1)) {
+            mapa[b] = true;
+        }
+        return mapa;
+    }
+
+    void cargar(boolean[] mapa) {
+        limpiar();
+        for (int b = 0; b < mapa.length && b < tamaño; b++) {
+            if (mapa[b]) {
+                marcar(b);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package SISTEMA;
+
+/**
+ * Modelo de tiempos del disco simulado, en microsegundos. SimulatedDisk lo
+ * usa para avanzar su reloj simulado en vez de dormir: búsqueda según la
+ * distancia que recorre el cabezal, espera rotacional hasta que el bloque
+ * pasa bajo el cabezal y transferencia por bloque.
+ */
+public interface ModeloTiempoDisco {
+
+    // Tiempo de llevar el cabezal del bloque 'desde' al bloque 'hasta'
+    long tiempoBusqueda(int desde, int hasta);
+
+    // Espera hasta que 'bloque' pasa bajo el cabezal, si el reloj marca 'relojUs'
+    long latenciaRotacional(int bloque, long relojUs);
+
+    // Tiempo de leer o escribir 'bloques' bloques seguidos
+    long tiempoTransferencia(int bloques);
+}
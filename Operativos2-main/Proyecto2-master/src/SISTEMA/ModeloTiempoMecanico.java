@@ -0,0 +1,69 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+/**
+ * Disco mecánico: cada pista tiene 'bloquesPorVuelta' bloques seguidos, así
+ * que moverse dentro de la misma pista no cuesta búsqueda. Entre pistas la
+ * búsqueda crece con la raíz de la distancia (el brazo acelera y frena, así
+ * que los saltos cortos pesan proporcionalmente más), desde
+ * 'busquedaMinimaUs' a la pista vecina hasta 'busquedaMaximaUs' de punta a
+ * punta. El plato gira a 'rpm'; el ángulo sale del reloj simulado, así que la
+ * espera rotacional es determinista.
+ */
+public class ModeloTiempoMecanico implements ModeloTiempoDisco {
+    private final int totalPistas;
+    private final long busquedaMinimaUs;
+    private final long busquedaMaximaUs;
+    private final long vueltaUs;
+    private final int bloquesPorVuelta;
+
+    // Valores de un disco de 7200 rpm: 1 ms a la pista vecina, 15 ms de punta a punta
+    public ModeloTiempoMecanico(int totalBloques) {
+        this(totalBloques, 1000, 15000, 7200, 32);
+    }
+
+    public ModeloTiempoMecanico(int totalBloques, long busquedaMinimaUs, long busquedaMaximaUs,
+            int rpm, int bloquesPorVuelta) {
+        if (totalBloques <= 0 || rpm <= 0 || bloquesPorVuelta <= 0 || busquedaMinimaUs > busquedaMaximaUs) {
+            throw new IllegalArgumentException("Parámetros de disco inválidos");
+        }
+        this.totalPistas = (totalBloques + bloquesPorVuelta - 1) / bloquesPorVuelta;
+        this.busquedaMinimaUs = busquedaMinimaUs;
+        this.busquedaMaximaUs = busquedaMaximaUs;
+        this.vueltaUs = 60_000_000L / rpm;
+        this.bloquesPorVuelta = bloquesPorVuelta;
+    }
+
+    @Override
+    public long tiempoBusqueda(int desde, int hasta) {
+        int distancia = Math.abs(Math.floorDiv(hasta, bloquesPorVuelta) - Math.floorDiv(desde, bloquesPorVuelta));
+        if (distancia == 0) {
+            return 0;
+        }
+        if (totalPistas <= 2) {
+            return busquedaMinimaUs;
+        }
+        double fraccion = Math.sqrt((double) (distancia - 1) / (totalPistas - 2));
+        return busquedaMinimaUs + Math.round((busquedaMaximaUs - busquedaMinimaUs) * Math.min(1.0, fraccion));
+    }
+
+    @Override
+    public long latenciaRotacional(int bloque, long relojUs) {
+        long sector = Math.floorMod(bloque, bloquesPorVuelta) * vueltaUs / bloquesPorVuelta;
+        return Math.floorMod(sector - relojUs, vueltaUs);
+    }
+
+    @Override
+    public long tiempoTransferencia(int bloques) {
+        return Math.max(0, bloques) * vueltaUs / bloquesPorVuelta;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mecánico (búsqueda %.1f-%.1f ms, %d rpm, %d bloques/vuelta)",
+                busquedaMinimaUs / 1000.0, busquedaMaximaUs / 1000.0, 60_000_000L / vueltaUs, bloquesPorVuelta);
+    }
+}
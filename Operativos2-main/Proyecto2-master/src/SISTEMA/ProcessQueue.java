@@ -4,40 +4,393 @@
  */
 package SISTEMA;
 
-import EDD.ListaEnlazada;
-import EDD.Nodo;
+import EDD.ListaDoble;
+import EDD.NodoDoble;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 
+/**
+ * Cola de procesos de I/O pendientes. Además del orden de llegada (para
+ * FIFO) mantiene un índice ordenado por posición de bloque, así el
+ * planificador encuentra el siguiente pedido con una búsqueda techo/piso en
+ * O(log n) en lugar de recorrer toda la cola. Cada IOProcess guarda sus
+ * nodos en ambas estructuras, de modo que quitarlo no recorre nada.
+ * Para DEADLINE también hay una cola por tipo de operación (lecturas y
+ * escrituras) en orden de llegada: su cabeza es el pedido que vence primero.
+ *
+ * Al encolar se intenta fusionar el pedido con el último pendiente del mismo
+ * archivo: UPDATEs seguidos quedan en uno con el último contenido, un
+ * CREATE seguido de DELETE se anula, y un READ se atiende en el mismo
+ * despacho que el pedido anterior. Cada despacho cuesta un ciclo completo
+ * de executeProcess (espera del disco y guardado), así que esto los ahorra.
+ *
+ * Con la cola justa activada, esos índices existen por usuario
+ * (ColaUsuario) y un reparto Deficit Round Robin decide a qué usuario le
+ * toca cada despacho; dentro de su turno el DiskScheduler elige con su
+ * política de siempre. Cada turno recibe QUANTUM bloques por unidad de peso
+ * y un CREATE cuesta su tamaño en bloques, así que quien crea miles de
+ * archivos no retrasa a los demás. Sin cola justa todos comparten una sola
+ * ColaUsuario y el comportamiento es el de antes.
+ *
+ * La interfaz agrega procesos mientras el hilo de procesamiento los saca,
+ * por eso los métodos son synchronized.
+ */
 public class ProcessQueue {
-    private ListaEnlazada<IOProcess> queue;
+    public static final int QUANTUM = 4;
+    public static final int PESO_ADMINISTRADOR = 2;
+    private static final String TODOS = "Todos";
+
+    private ListaDoble<IOProcess> llegada; // Orden de llegada global (FIFO sin cola justa e interfaz)
+    private LinkedHashMap<String, ColaUsuario> clases;
+    private HashMap<String, Integer> pesos;
+    private ListaDoble<ColaUsuario> activas; // Clases con pendientes; la cabeza tiene el turno
+    private ColaUsuario turno;
+    private boolean colaJusta;
+    // Ruta del archivo -> último proceso en cola que lo toca (con sus fusionados)
+    private HashMap<String, IOProcess> ultimoPorArchivo;
+    private int fusionados;
+    private int anulados;
 
     public ProcessQueue() {
-        this.queue = new ListaEnlazada<>();
+        this.llegada = new ListaDoble<>();
+        this.clases = new LinkedHashMap<>();
+        this.pesos = new HashMap<>();
+        this.activas = new ListaDoble<>();
+        this.ultimoPorArchivo = new HashMap<>();
+        pesos.put("Administrador", PESO_ADMINISTRADOR);
     }
 
-    public void addProcess(IOProcess process) {
+    /**
+     * Encola el proceso o lo fusiona con el último pendiente de su archivo.
+     * Devuelve el proceso que lo va a ejecutar (él mismo si no se fusionó),
+     * o null si se anuló junto con un CREATE pendiente.
+     */
+    public synchronized IOProcess addProcess(IOProcess process) {
         process.setState(ProcessState.READY);
-        queue.agregar(process);
+        process.setTiempoEncolado(System.currentTimeMillis());
+        String archivo = FileSystem.rutaCompleta(process.getIoRequest().getPath(), process.getIoRequest().getFileName());
+        IOProcess ultimo = ultimoPorArchivo.get(archivo);
+        if (ultimo != null) {
+            IOProcess destino = fusionar(ultimo, process);
+            if (destino != process) {
+                return destino;
+            }
+        }
+        ultimoPorArchivo.put(archivo, process);
+        process.nodoLlegada = llegada.agregarAlFinal(process);
+        encolarEnClase(process);
+        notifyAll(); // Por si el planificador está anticipando
+        return process;
+    }
+
+    private IOProcess fusionar(IOProcess ultimo, IOProcess nuevo) {
+        Operation previa = ultimo.getIoRequest().getOperation();
+        Operation operacion = nuevo.getIoRequest().getOperation();
+        switch (operacion) {
+            case UPDATE:
+                if (previa == Operation.UPDATE && ultimo.getLote() == null) {
+                    // Solo importa el último contenido
+                    ultimo.getIoRequest().setContent(nuevo.getIoRequest().getContent());
+                    ultimo.absorber(nuevo);
+                    fusionados++;
+                    return ultimo;
+                }
+                break;
+            case DELETE:
+                if (previa == Operation.CREATE && ultimo.anulable && !ultimo.tieneFusionados()) {
+                    // El archivo se crearía y se borraría sin que nadie lo use
+                    quitar(ultimo);
+                    ultimo.setState(ProcessState.TERMINATED);
+                    nuevo.setState(ProcessState.TERMINATED);
+                    nuevo.absorber(ultimo); // Para que FileSystem libere lo que el CREATE reservó
+                    anulados += 2;
+                    return null;
+                }
+                break;
+            case READ:
+                if (previa == Operation.READ && ultimo.getLote() == null) {
+                    // Dos lecturas seguidas del mismo archivo leen lo mismo
+                    ultimo.absorber(nuevo);
+                    fusionados++;
+                    return ultimo;
+                }
+                if (previa == Operation.CREATE || previa == Operation.UPDATE) {
+                    ultimo.agregarAlLote(nuevo);
+                    fusionados++;
+                    return ultimo;
+                }
+                break;
+            case CREATE:
+                // Solo se puede anular si al ejecutarse el archivo no existirá:
+                // sin pedidos previos lo decide FileSystem; tras un DELETE pendiente, sí
+                nuevo.anulable = previa == Operation.DELETE;
+                break;
+        }
+        return nuevo;
+    }
+
+    private void encolarEnClase(IOProcess process) {
+        ColaUsuario clase = claseDe(process);
+        if (clase.estaVacia()) {
+            clase.nodoActiva = activas.agregarAlFinal(clase);
+        }
+        clase.encolar(process);
+    }
+
+    private ColaUsuario claseDe(IOProcess process) {
+        String nombre = colaJusta && process.getUsuario() != null ? process.getUsuario() : TODOS;
+        return clases.computeIfAbsent(nombre, n -> new ColaUsuario(n, pesos.getOrDefault(n, 1)));
+    }
+
+    /**
+     * Decide qué clase atiende el próximo despacho. El DiskScheduler lo
+     * llama antes de elegir; las búsquedas (primero, techo, piso...) quedan
+     * limitadas a esa clase. Una clase conserva el turno mientras le quede
+     * déficit; al agotarlo pasa al final del anillo.
+     */
+    synchronized void elegirTurno() {
+        NodoDoble<ColaUsuario> cabeza = activas.getCabeza();
+        if (cabeza == null) {
+            turno = null;
+            return;
+        }
+        if (!colaJusta) {
+            turno = cabeza.dato;
+            return;
+        }
+        while (cabeza.dato.deficit <= 0) {
+            cabeza.dato.deficit += (long) QUANTUM * cabeza.dato.peso;
+            if (cabeza.dato.deficit > 0) {
+                break;
+            }
+            // Sigue en deuda por un CREATE grande: espera otra ronda
+            activas.moverAlFinal(cabeza);
+            cabeza = activas.getCabeza();
+        }
+        turno = cabeza.dato;
+    }
+
+    public synchronized IOProcess getNextProcess() {
+        NodoDoble<IOProcess> cabeza = llegada.getCabeza();
+        if (cabeza == null) {
+            return null;
+        }
+        IOProcess process = cabeza.dato;
+        quitar(process);
+        return process;
+    }
+
+    // El más antiguo de la clase en turno, sin sacarlo
+    synchronized IOProcess primero() {
+        ColaUsuario clase = enTurno();
+        return clase == null ? null : clase.primero();
+    }
+
+    // El primero en llegar entre los de menor posición >= 'posicion', o null
+    synchronized IOProcess techo(int posicion) {
+        ColaUsuario clase = enTurno();
+        return clase == null ? null : clase.techo(posicion);
+    }
+
+    // El primero en llegar entre los de mayor posición <= 'posicion', o null
+    synchronized IOProcess piso(int posicion) {
+        ColaUsuario clase = enTurno();
+        return clase == null ? null : clase.piso(posicion);
+    }
+
+    // La lectura (o escritura) más antigua: la próxima en vencer
+    synchronized IOProcess masAntiguo(boolean lectura) {
+        ColaUsuario clase = enTurno();
+        return clase == null ? null : clase.masAntiguo(lectura);
+    }
+
+    synchronized IOProcess menor() {
+        ColaUsuario clase = enTurno();
+        return clase == null ? null : clase.menor();
+    }
+
+    synchronized IOProcess mayor() {
+        ColaUsuario clase = enTurno();
+        return clase == null ? null : clase.mayor();
+    }
+
+    // Lectura pendiente de 'usuario' a no más de 'radio' bloques de 'posicion', o null.
+    // Con cola justa solo si su clase tiene el turno: anticipar no se salta el reparto.
+    synchronized IOProcess lecturaCercana(String usuario, int posicion, int radio) {
+        ColaUsuario clase = clases.get(colaJusta ? usuario : TODOS);
+        if (clase == null || (colaJusta && clase != enTurno())) {
+            return null;
+        }
+        return clase.lecturaCercana(usuario, posicion, radio);
+    }
+
+    /**
+     * Espera hasta 'ventanaMs' a que llegue una lectura de 'usuario' cerca de
+     * 'posicion'. Libera el candado mientras espera, así la interfaz puede
+     * seguir encolando. Devuelve la lectura, o null si no llegó a tiempo.
+     * Con cola justa no se espera mientras otro usuario tenga pendientes:
+     * la espera sería tiempo de disco quitado a su turno.
+     */
+    synchronized IOProcess esperarLecturaCercana(String usuario, int posicion, int radio, long ventanaMs) {
+        long limite = System.currentTimeMillis() + ventanaMs;
+        IOProcess encontrado = lecturaCercana(usuario, posicion, radio);
+        long restante = ventanaMs;
+        while (encontrado == null && restante > 0 && !esperanOtros(usuario)) {
+            try {
+                wait(restante);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            encontrado = lecturaCercana(usuario, posicion, radio);
+            restante = limite - System.currentTimeMillis();
+        }
+        return encontrado;
+    }
+
+    // Con cola justa, ¿hay pendientes de otros usuarios? Esperar les quitaría tiempo de disco
+    synchronized boolean esperanOtros(String usuario) {
+        if (!colaJusta) {
+            return false;
+        }
+        for (NodoDoble<ColaUsuario> actual = activas.getCabeza(); actual != null; actual = actual.siguiente) {
+            if (!actual.dato.getNombre().equals(usuario)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ColaUsuario enTurno() {
+        if (turno == null || turno.estaVacia()) {
+            elegirTurno();
+        }
+        return turno;
+    }
+
+    // Saca el proceso elegido por el planificador y le cobra el despacho a su clase
+    synchronized void despachar(IOProcess process) {
+        ColaUsuario clase = process.cola;
+        if (clase == null) {
+            return;
+        }
+        clase.registrarDespacho(System.currentTimeMillis() - process.getTiempoEncolado());
+        clase.deficit -= costo(process);
+        quitar(process);
+        if (colaJusta && clase.nodoActiva != null && clase.deficit <= 0) {
+            // Se le acabó el turno
+            activas.moverAlFinal(clase.nodoActiva);
+        }
+    }
+
+    // Un CREATE escribe todos sus bloques; el resto cuenta como un bloque
+    private static long costo(IOProcess process) {
+        IORequest request = process.getIoRequest();
+        return request.getOperation() == Operation.CREATE ? Math.max(1, request.getFileSize()) : 1;
+    }
+
+    // Saca el proceso de la cola en O(log n); devuelve false si ya no estaba
+    synchronized boolean quitar(IOProcess process) {
+        if (process.nodoLlegada == null) {
+            return false;
+        }
+        llegada.quitar(process.nodoLlegada);
+        process.nodoLlegada = null;
+        IORequest request = process.getIoRequest();
+        ultimoPorArchivo.remove(FileSystem.rutaCompleta(request.getPath(), request.getFileName()), process);
+        ColaUsuario clase = process.cola;
+        clase.quitar(process);
+        if (clase.estaVacia()) {
+            // DRR: una clase sin pendientes no acumula crédito
+            activas.quitar(clase.nodoActiva);
+            clase.nodoActiva = null;
+            clase.deficit = 0;
+        }
+        return true;
     }
 
-    public IOProcess getNextProcess() {
-        Nodo<IOProcess> cabeza = queue.getCabeza();
-        if (cabeza != null) {
-            IOProcess process = cabeza.dato;
-            queue.eliminar(process);
-            return process;
+    /**
+     * Activa o desactiva el reparto justo entre usuarios. Los procesos
+     * pendientes pasan a las nuevas sub-colas en su orden de llegada.
+     */
+    public synchronized void setColaJusta(boolean activa) {
+        if (activa == colaJusta) {
+            return;
         }
-        return null;
+        colaJusta = activa;
+        for (ColaUsuario clase : clases.values()) {
+            clase.nodoActiva = null;
+            clase.deficit = 0;
+        }
+        activas.vaciar();
+        turno = null;
+        for (NodoDoble<IOProcess> actual = llegada.getCabeza(); actual != null; actual = actual.siguiente) {
+            actual.dato.cola.quitar(actual.dato);
+        }
+        for (NodoDoble<IOProcess> actual = llegada.getCabeza(); actual != null; actual = actual.siguiente) {
+            encolarEnClase(actual.dato);
+        }
+    }
+
+    public synchronized boolean isColaJusta() {
+        return colaJusta;
+    }
+
+    // Peso de un usuario en el reparto (por defecto 1; el Administrador, PESO_ADMINISTRADOR)
+    public synchronized void setPeso(String usuario, int peso) {
+        pesos.put(usuario, Math.max(1, peso));
+        ColaUsuario clase = clases.get(usuario);
+        if (clase != null) {
+            clase.peso = Math.max(1, peso);
+        }
+    }
+
+    // Una línea por clase: profundidad, espera promedio de los despachados y espera actual
+    public synchronized String getResumenClases() {
+        StringBuilder resumen = new StringBuilder();
+        long ahora = System.currentTimeMillis();
+        for (ColaUsuario clase : clases.values()) {
+            if (clase.estaVacia() && clase.getDespachados() == 0) {
+                continue;
+            }
+            resumen.append(String.format("   • %s (peso %d): %d en cola, espera promedio %.0f ms, más antiguo %d ms%n",
+                    clase.getNombre(), clase.peso, clase.getProfundidad(), clase.getEsperaPromedio(),
+                    clase.getEsperaActual(ahora)));
+        }
+        return resumen.length() == 0 ? "   • Sin procesos\n" : resumen.toString();
+    }
+
+    // Posición del último pedido pendiente para este archivo (ruta completa), o -1 si no hay
+    public synchronized int posicionPendiente(String archivo) {
+        IOProcess ultimo = ultimoPorArchivo.get(archivo);
+        return ultimo == null ? -1 : ultimo.getIoRequest().getBlockPosition();
+    }
+
+    // Copia de la cola en orden de llegada (para mostrarla en la interfaz)
+    public synchronized IOProcess[] getProcesos() {
+        IOProcess[] procesos = new IOProcess[llegada.contarElementos()];
+        int i = 0;
+        for (NodoDoble<IOProcess> actual = llegada.getCabeza(); actual != null; actual = actual.siguiente) {
+            procesos[i++] = actual.dato;
+        }
+        return procesos;
+    }
+
+    // Procesos que se completaron dentro de otro (absorbidos o en su lote)
+    public synchronized int getFusionados() {
+        return fusionados;
     }
 
-    public ListaEnlazada<IOProcess> getQueue() {
-        return queue;
+    // Procesos que no llegaron a ejecutarse porque un CREATE y un DELETE se anularon
+    public synchronized int getAnulados() {
+        return anulados;
     }
 
-    public int size() {
-        return queue.contarElementos();
+    public synchronized int size() {
+        return llegada.contarElementos();
     }
 
-    public boolean isEmpty() {
-        return queue.getCabeza() == null;
+    public synchronized boolean isEmpty() {
+        return llegada.estaVacia();
     }
 }
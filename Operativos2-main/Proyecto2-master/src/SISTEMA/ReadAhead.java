@@ -0,0 +1,78 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ventana adaptativa de lectura anticipada del BufferCache.
+ * Cada bloque precargado que luego se pide agranda la ventana en uno; cada
+ * bloque precargado que sale del buffer sin haberse usado la reduce a la
+ * mitad. Nunca pasa de una cuarta parte del buffer: una ventana más grande
+ * expulsaría bloques precargados antes de que se lleguen a pedir. Los
+ * contadores permiten ver si la precarga compensa.
+ */
+class ReadAhead {
+    static final int VENTANA_INICIAL = 4;
+    static final int VENTANA_MINIMA = 1;
+    static final int VENTANA_MAXIMA = 64;
+    // Fracción del buffer que puede ocupar la ventana
+    static final int DIVISOR_CAPACIDAD = 4;
+
+    private final int ventanaMaxima;
+    private final int ventanaInicial;
+
+    private AtomicInteger ventana;
+    private LongAdder precargados;
+    private LongAdder aprovechados;
+    private LongAdder desperdiciados;
+
+    ReadAhead(int capacidadBuffer) {
+        this.ventanaMaxima = Math.max(VENTANA_MINIMA, Math.min(VENTANA_MAXIMA, capacidadBuffer / DIVISOR_CAPACIDAD));
+        this.ventanaInicial = Math.min(VENTANA_INICIAL, ventanaMaxima);
+        this.ventana = new AtomicInteger(ventanaInicial);
+        this.precargados = new LongAdder();
+        this.aprovechados = new LongAdder();
+        this.desperdiciados = new LongAdder();
+    }
+
+    int getVentana() {
+        return ventana.get();
+    }
+
+    void registrarPrecarga(int bloques) {
+        precargados.add(bloques);
+    }
+
+    void aprovechado() {
+        aprovechados.increment();
+        ventana.updateAndGet(v -> Math.min(ventanaMaxima, v + 1));
+    }
+
+    void desperdiciado() {
+        desperdiciados.increment();
+        ventana.updateAndGet(v -> Math.max(VENTANA_MINIMA, v / 2));
+    }
+
+    long getPrecargados() {
+        return precargados.sum();
+    }
+
+    long getAprovechados() {
+        return aprovechados.sum();
+    }
+
+    long getDesperdiciados() {
+        return desperdiciados.sum();
+    }
+
+    void reiniciar() {
+        ventana.set(ventanaInicial);
+        precargados.reset();
+        aprovechados.reset();
+        desperdiciados.reset();
+    }
+}
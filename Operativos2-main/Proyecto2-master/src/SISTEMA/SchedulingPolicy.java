@@ -8,5 +8,8 @@ public enum SchedulingPolicy {
     FIFO,
     SSTF,
     SCAN,
-    CSCAN
+    CSCAN,
+    LOOK,
+    CLOOK,
+    DEADLINE
 }
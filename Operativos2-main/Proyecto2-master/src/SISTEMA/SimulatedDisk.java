@@ -8,24 +8,60 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter; 
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import EDD.ListaEnlazada;
 import EDD.Nodo;
+import EDD.Tramo;
 import java.util.HashMap;
 import com.google.gson.Gson;
 
 public class SimulatedDisk {
-    private boolean[] blockMap;
+    private MapaBits mapa;
+    private AllocationPolicy politicaAsignacion;
+    private AsignadorBloques asignador;   // Los mismos huecos del mapa, en la estructura de la política
     private HashMap<Integer, String> blockToFileMap;
     private static final String INFO_PATH = "INFO/";
     private static final String DISK_FILE = INFO_PATH + "disk.json";
+    private static final String ALMACEN_FILE = INFO_PATH + "disk.dat";
+    public static final int TAMAÑO_BLOQUE = BufferCache.TAMAÑO_BLOQUE;
+    private static final byte[] CEROS = new byte[TAMAÑO_BLOQUE];
+    // Contenido de los bloques: disk.dat mapeado en memoria, una ranura de TAMAÑO_BLOQUE por bloque.
+    // Solo el volumen lo abre; los discos físicos del arreglo RAID miden tiempos y nada más.
+    private MappedByteBuffer almacen;
+    private long lecturasAlmacen;
+    private long escriturasAlmacen;
+    private long nanosEscritura;
+    private long sincronizaciones;
+    private long nanosSincronizacion;
     private int totalBlocks;
+    // RAID-0: franjas de UNIDAD_FRANJA bloques lógicos seguidos, repartidas por turno entre los discos
+    public static final int UNIDAD_FRANJA = 4;
+    private int numDiscos = 1;
+    // Tiempos simulados (µs): el reloj avanza con cada búsqueda y transferencia en vez de dormir
+    private ModeloTiempoDisco modeloTiempo;
+    private long relojUs;
+    private int cabezal;
+    private long busquedaPendienteUs;   // Búsquedas hechas desde el último pedido atendido
+    private long pedidosAtendidos;
+    private long servicioTotalUs;
+    private long servicioMaximoUs;
+    private long busquedaTotalUs;
+    private long rotacionTotalUs;
+    private long transferenciaTotalUs;
 
     public SimulatedDisk(int totalBlocks) {
-        this.blockMap = new boolean[totalBlocks];
+        this.mapa = new MapaBits(totalBlocks);
+        this.politicaAsignacion = AllocationPolicy.NEXT_FIT;
+        this.asignador = crearAsignador(politicaAsignacion);
+        this.asignador.reconstruir(mapa);
         this.blockToFileMap = new HashMap<>();
         this.totalBlocks = totalBlocks;
+        this.modeloTiempo = new ModeloTiempoMecanico(totalBlocks);
         crearCarpetaInfo();
     }
 
@@ -36,84 +72,305 @@ public class SimulatedDisk {
         }
     }
 
-    public boolean[] getBlockMap() {
-        return blockMap;
+    /**
+     * Abre (o crea) disk.dat con el tamaño justo para todos los bloques y lo
+     * mapea en memoria. El contenido sobrevive entre ejecuciones igual que
+     * disk.json. Si no se puede abrir, el disco sigue funcionando sin
+     * contenido (los bloques se leen en ceros).
+     */
+    public synchronized void abrirAlmacen() {
+        long tamaño = (long) mapa.getTamaño() * TAMAÑO_BLOQUE;
+        try (RandomAccessFile archivo = new RandomAccessFile(ALMACEN_FILE, "rw")) {
+            archivo.setLength(tamaño);
+            // El mapeo sigue válido después de cerrar el canal
+            almacen = archivo.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, tamaño);
+        } catch (IOException e) {
+            e.printStackTrace();
+            almacen = null;
+        }
     }
 
-    public ListaEnlazada<Integer> allocateBlocks(int size, String fileName) {
-        ListaEnlazada<Integer> allocatedBlocks = new ListaEnlazada<>();
-        int count = 0;
-        int totalBlocks = blockMap.length;
-        int attempts = 0;
-        int maxAttempts = totalBlocks * 10;
+    public synchronized boolean tieneAlmacen() {
+        return almacen != null;
+    }
 
-        while (count < size && attempts < maxAttempts) {
-            int index = (int) (Math.random() * totalBlocks);
-            if (!blockMap[index]) {
-                blockMap[index] = true;
-                allocatedBlocks.agregar(index);
-                blockToFileMap.put(index, fileName);
-                count++;
-            }
-            attempts++;
+    /**
+     * Vista de solo lectura de la ranura del bloque, sin copiar: apunta
+     * directo a las páginas mapeadas de disk.dat. null si no hay almacén.
+     */
+    public synchronized ByteBuffer leerBloque(int bloque) {
+        if (almacen == null || bloque < 0 || bloque >= mapa.getTamaño()) {
+            return null;
+        }
+        lecturasAlmacen++;
+        return almacen.slice(bloque * TAMAÑO_BLOQUE, TAMAÑO_BLOQUE).asReadOnlyBuffer();
+    }
+
+    // Escribe 'datos' en la ranura del bloque (recortado al tamaño de bloque) y rellena el resto con ceros
+    public synchronized void escribirBloque(int bloque, byte[] datos) {
+        if (almacen == null || bloque < 0 || bloque >= mapa.getTamaño()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        int longitud = datos == null ? 0 : Math.min(datos.length, TAMAÑO_BLOQUE);
+        ByteBuffer ranura = almacen.slice(bloque * TAMAÑO_BLOQUE, TAMAÑO_BLOQUE);
+        if (longitud > 0) {
+            ranura.put(0, datos, 0, longitud);
+        }
+        ranura.put(longitud, CEROS, 0, TAMAÑO_BLOQUE - longitud);
+        escriturasAlmacen++;
+        nanosEscritura += System.nanoTime() - inicio;
+    }
+
+    // Copia una ranura a otra dentro del mapeo (desfragmentación)
+    private void copiarRanura(int desde, int hasta) {
+        if (almacen != null && desde != hasta) {
+            almacen.put(hasta * TAMAÑO_BLOQUE, almacen, desde * TAMAÑO_BLOQUE, TAMAÑO_BLOQUE);
+            escriturasAlmacen++;
+        }
+    }
+
+    // Lleva a disk.dat lo escrito en el mapeo (el punto de durabilidad de write-through y write-back)
+    public synchronized void forzarAlmacen() {
+        if (almacen == null) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        almacen.force();
+        sincronizaciones++;
+        nanosSincronizacion += System.nanoTime() - inicio;
+    }
+
+    public synchronized String getResumenAlmacen() {
+        if (almacen == null) {
+            return "   • Sin almacén: los bloques se leen en ceros\n";
         }
+        return String.format("   • %s: %d bloques de %d bytes (%.1f KB)%n"
+                + "   • Lecturas: %d | Escrituras: %d (%.1f µs por bloque)%n"
+                + "   • Sincronizaciones a disco: %d (%.2f ms cada una)%n",
+                ALMACEN_FILE, mapa.getTamaño(), TAMAÑO_BLOQUE, mapa.getTamaño() * TAMAÑO_BLOQUE / 1024.0,
+                lecturasAlmacen, escriturasAlmacen,
+                escriturasAlmacen == 0 ? 0.0 : nanosEscritura / 1000.0 / escriturasAlmacen,
+                sincronizaciones, sincronizaciones == 0 ? 0.0 : nanosSincronizacion / 1e6 / sincronizaciones);
+    }
+
+    // Copia del mapa (true = usado), para la interfaz y disk.json
+    public synchronized boolean[] getBlockMap() {
+        return mapa.aArreglo();
+    }
+
+    public synchronized boolean estaUsado(int bloque) {
+        return mapa.estaUsado(bloque);
+    }
+
+    public synchronized int getBloquesLibres() {
+        return mapa.getLibres();
+    }
+
+    public synchronized int getBloquesUsados() {
+        return mapa.getTamaño() - mapa.getLibres();
+    }
+
+    public synchronized AllocationPolicy getAllocationPolicy() {
+        return politicaAsignacion;
+    }
 
-        if (count < size) {
-            releaseBlocks(allocatedBlocks);
+    /**
+     * Cambia la estrategia de asignación; los archivos ya creados quedan
+     * donde están. La nueva estructura de huecos se arma con el mapa, y el
+     * relleno que hubiera reservado el buddy (bloques usados sin archivo)
+     * vuelve a quedar libre.
+     */
+    public synchronized void setAllocationPolicy(AllocationPolicy politica) {
+        if (politica == politicaAsignacion) {
+            return;
+        }
+        this.politicaAsignacion = politica;
+        this.asignador = crearAsignador(politica);
+        asignador.reconstruir(mapa);
+        liberarBloquesSinArchivo();
+    }
+
+    private static AsignadorBloques crearAsignador(AllocationPolicy politica) {
+        return politica == AllocationPolicy.BUDDY ? new AsignadorBuddy() : new AsignadorTramos(politica);
+    }
+
+    /**
+     * Reserva 'size' bloques para el archivo con la estrategia de la
+     * política. Si no alcanzan los libres falla enseguida (contador O(1)); si
+     * alcanzan, siempre lo logra, aunque el archivo quede en varios tramos.
+     * Los bloques lógicos seguidos ya quedan repartidos en franjas entre los
+     * discos del arreglo.
+     */
+    public synchronized ListaEnlazada<Tramo> allocateBlocks(int size, String fileName) {
+        if (size > mapa.getLibres()) {
             return null;
         }
+        ListaEnlazada<Tramo> asignados = asignador.reservar(size);
+        for (Nodo<Tramo> actual = asignados.getCabeza(); actual != null; actual = actual.siguiente) {
+            for (int b = actual.dato.inicio; b < actual.dato.fin(); b++) {
+                blockToFileMap.put(b, fileName);
+                // Un archivo nuevo no ve lo que dejó el anterior dueño del bloque
+                escribirBloque(b, null);
+            }
+        }
 
         guardarEstadoDisco();
-        return allocatedBlocks;
+        return asignados;
     }
 
-    public void releaseBlocks(ListaEnlazada<Integer> blocks) {
-        Nodo<Integer> actual = blocks.getCabeza();
-        while (actual != null) {
-            if (actual.dato >= 0 && actual.dato < blockMap.length) {
-                blockMap[actual.dato] = false;
-                blockToFileMap.remove(actual.dato);
+    public synchronized void releaseBlocks(ListaEnlazada<Tramo> tramos) {
+        for (Nodo<Tramo> actual = tramos.getCabeza(); actual != null; actual = actual.siguiente) {
+            for (int b = actual.dato.inicio; b < actual.dato.fin(); b++) {
+                blockToFileMap.remove(b);
             }
-            actual = actual.siguiente;
+            asignador.liberar(actual.dato.inicio, actual.dato.longitud);
+        }
+        guardarEstadoDisco();
+    }
+
+    public synchronized String getResumenFragmentacion() {
+        return asignador.getResumen();
+    }
+
+    public synchronized int getHuecosLibres() {
+        return asignador.getHuecos();
+    }
+
+    public synchronized int getMayorHuecoLibre() {
+        return asignador.getMayorHueco();
+    }
+
+    // Primer bloque libre, o -1 si el disco está lleno
+    public synchronized int getPrimerLibre() {
+        return mapa.siguienteLibre(0);
+    }
+
+    // Primer bloque libre desde 'desde', o -1 si no hay
+    public synchronized int getSiguienteLibre(int desde) {
+        return mapa.siguienteLibre(desde);
+    }
+
+    // Primer bloque usado desde 'desde', o el total de bloques si no hay
+    public synchronized int getSiguienteUsado(int desde) {
+        return mapa.siguienteUsado(desde);
+    }
+
+    /**
+     * Desfragmentación: pasa los bloques de un archivo a un solo tramo
+     * nuevo y recién entonces suelta los viejos. Devuelve el tramo nuevo, o
+     * null (sin cambiar nada) si ningún hueco alcanza.
+     */
+    public synchronized Tramo reubicarContiguo(ListaEnlazada<Tramo> viejos, int bloques, String fileName) {
+        Tramo nuevo = asignador.reservarContiguo(bloques);
+        if (nuevo == null) {
+            return null;
+        }
+        int destino = nuevo.inicio;
+        for (Nodo<Tramo> actual = viejos.getCabeza(); actual != null; actual = actual.siguiente) {
+            for (int b = actual.dato.inicio; b < actual.dato.fin(); b++) {
+                copiarRanura(b, destino++);
+            }
+        }
+        for (Nodo<Tramo> actual = viejos.getCabeza(); actual != null; actual = actual.siguiente) {
+            for (int b = actual.dato.inicio; b < actual.dato.fin(); b++) {
+                blockToFileMap.remove(b);
+            }
+            asignador.liberar(actual.dato.inicio, actual.dato.longitud);
+        }
+        for (int b = nuevo.inicio; b < nuevo.fin(); b++) {
+            blockToFileMap.put(b, fileName);
         }
         guardarEstadoDisco();
+        return nuevo;
     }
 
-    public String getArchivoPorBloque(int bloque) {
+    /**
+     * Compactación: corre el tramo [inicio, inicio + longitud) hacia atrás
+     * hasta 'destino' (destino < inicio). Solo se toma la parte del destino
+     * que no se solapa con el tramo, que tiene que estar libre, y se suelta
+     * la cola que queda fuera. Devuelve false sin cambiar nada si no se puede.
+     */
+    public synchronized boolean moverTramo(int inicio, int longitud, int destino, String fileName) {
+        int finLibre = Math.min(destino + longitud, inicio);
+        if (destino >= inicio || !asignador.tomar(destino, finLibre - destino)) {
+            return false;
+        }
+        for (int b = destino; b < finLibre; b++) {
+            blockToFileMap.put(b, fileName);
+        }
+        // De menor a mayor: cada ranura se copia antes de que otra la pise
+        for (int i = 0; i < longitud; i++) {
+            copiarRanura(inicio + i, destino + i);
+        }
+        int desde = Math.max(inicio, destino + longitud);
+        for (int b = desde; b < inicio + longitud; b++) {
+            blockToFileMap.remove(b);
+        }
+        asignador.liberar(desde, inicio + longitud - desde);
+        guardarEstadoDisco();
+        return true;
+    }
+
+    public synchronized String getArchivoPorBloque(int bloque) {
         return blockToFileMap.getOrDefault(bloque, null);
     }
 
     // 🆕 NUEVO MÉTODO: Registrar archivo en bloque (usado al cargar desde JSON)
-    public void registrarArchivoEnBloque(int bloque, String fileName) {
-        if (bloque >= 0 && bloque < blockMap.length) {
+    public synchronized void registrarArchivoEnBloque(int bloque, String fileName) {
+        if (bloque >= 0 && bloque < mapa.getTamaño()) {
             blockToFileMap.put(bloque, fileName);
         }
     }
 
+    // Libera los bloques marcados como usados que no pertenecen a ningún archivo
+    // (p. ej. reservas de CREATE que quedaron en cola al cerrar). Devuelve cuántos liberó.
+    public synchronized int liberarBloquesSinArchivo() {
+        int liberados = 0;
+        for (int i = mapa.siguienteUsado(0); i < mapa.getTamaño(); i = mapa.siguienteUsado(i + 1)) {
+            if (!blockToFileMap.containsKey(i)) {
+                mapa.liberar(i);
+                liberados++;
+            }
+        }
+        if (liberados > 0) {
+            asignador.reconstruir(mapa);
+            guardarEstadoDisco();
+        }
+        return liberados;
+    }
+
     // 🆕 NUEVO MÉTODO: Limpiar completamente el disco
-    public void limpiarCompletamente() {
-        for (int i = 0; i < blockMap.length; i++) {
-            blockMap[i] = false;
+    public synchronized void limpiarCompletamente() {
+        mapa.limpiar();
+        asignador = crearAsignador(politicaAsignacion);
+        asignador.reconstruir(mapa);
+        if (almacen != null) {
+            for (int b = 0; b < mapa.getTamaño(); b++) {
+                escribirBloque(b, null);
+            }
+            forzarAlmacen();
         }
         blockToFileMap.clear();
         guardarEstadoDisco();
     }
 
-    public void guardarEstadoDisco() {
+    public synchronized void guardarEstadoDisco() {
         try (Writer writer = new FileWriter(DISK_FILE)) {
-            new Gson().toJson(blockMap, writer);
+            new Gson().toJson(mapa.aArreglo(), writer);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    public void cargarEstadoDisco() {
+    public synchronized void cargarEstadoDisco() {
         File file = new File(DISK_FILE);
         if (file.exists()) {
             try (Reader reader = new FileReader(DISK_FILE)) {
                 boolean[] loadedBlockMap = new Gson().fromJson(reader, boolean[].class);
-                if (loadedBlockMap != null && loadedBlockMap.length == blockMap.length) {
-                    System.arraycopy(loadedBlockMap, 0, blockMap, 0, loadedBlockMap.length);
+                if (loadedBlockMap != null && loadedBlockMap.length == mapa.getTamaño()) {
+                    mapa.cargar(loadedBlockMap);
+                    asignador.reconstruir(mapa);
                     // blockToFileMap se reconstruye en FileSystem.reconstruirMapaDeArchivos()
                 }
             } catch (IOException e) {
@@ -122,6 +379,145 @@ public class SimulatedDisk {
         }
     }
 
+    public int getNumDiscos() {
+        return numDiscos;
+    }
+
+    public void setNumDiscos(int numDiscos) {
+        this.numDiscos = Math.max(1, numDiscos);
+    }
+
+    public int getDiscoDeBloque(int bloque) {
+        return (bloque / UNIDAD_FRANJA) % numDiscos;
+    }
+
+    // Posición del bloque dentro de su disco
+    public int getBloqueFisico(int bloque) {
+        return bloque / (UNIDAD_FRANJA * numDiscos) * UNIDAD_FRANJA + bloque % UNIDAD_FRANJA;
+    }
+
+    public int getBloquesPorDisco() {
+        int filas = (mapa.getTamaño() + UNIDAD_FRANJA * numDiscos - 1) / (UNIDAD_FRANJA * numDiscos);
+        return numDiscos == 1 ? mapa.getTamaño() : filas * UNIDAD_FRANJA;
+    }
+
+    // Mueve el cabezal a 'destino'; el tiempo de búsqueda se cobra al próximo pedido atendido
+    public synchronized void buscar(int destino) {
+        long busqueda = modeloTiempo.tiempoBusqueda(cabezal, destino);
+        relojUs += busqueda;
+        busquedaPendienteUs += busqueda;
+        busquedaTotalUs += busqueda;
+        cabezal = destino;
+    }
+
+    /**
+     * Atiende un pedido de 'bloques' bloques a partir de 'bloque': búsqueda
+     * (incluida la que ya hizo el planificador), espera rotacional y
+     * transferencia. Avanza el reloj y devuelve el tiempo de servicio en µs.
+     */
+    public synchronized long atender(int bloque, int bloques) {
+        long servicio = busquedaPendienteUs + transferir(bloque, bloques);
+        busquedaPendienteUs = 0;
+        return registrarPedido(servicio);
+    }
+
+    /**
+     * Atiende un pedido que lee o escribe varios tramos (posiciones de este
+     * disco), en orden: una búsqueda y una espera rotacional por tramo, y la
+     * transferencia seguida dentro de cada uno.
+     */
+    public synchronized long atenderTramos(ListaEnlazada<Tramo> tramos) {
+        long servicio = transferirTramos(tramos) + busquedaPendienteUs;
+        busquedaPendienteUs = 0;
+        return registrarPedido(servicio);
+    }
+
+    /**
+     * Como atenderTramos, para las franjas de un pedido de otro disco (o una
+     * copia del desfragmentador): se cobran solo sus propias búsquedas. La
+     * que el planificador de este disco dejó pendiente es de su pedido.
+     */
+    public synchronized long atenderFranjas(ListaEnlazada<Tramo> tramos) {
+        return registrarPedido(transferirTramos(tramos));
+    }
+
+    private long transferirTramos(ListaEnlazada<Tramo> tramos) {
+        long servicio = 0;
+        for (Nodo<Tramo> actual = tramos.getCabeza(); actual != null; actual = actual.siguiente) {
+            servicio += transferir(actual.dato.inicio, actual.dato.longitud);
+        }
+        return servicio;
+    }
+
+    // Búsqueda (si el cabezal no está ahí), espera rotacional y transferencia; sin contar como pedido
+    private long transferir(int bloque, int bloques) {
+        long busquedaPrevia = busquedaPendienteUs;
+        if (bloque != cabezal) {
+            buscar(bloque);
+        }
+        long busqueda = busquedaPendienteUs - busquedaPrevia;
+        busquedaPendienteUs = busquedaPrevia;
+        long rotacion = modeloTiempo.latenciaRotacional(bloque, relojUs);
+        long transferencia = modeloTiempo.tiempoTransferencia(bloques);
+        relojUs += rotacion + transferencia;
+        rotacionTotalUs += rotacion;
+        transferenciaTotalUs += transferencia;
+        return busqueda + rotacion + transferencia;
+    }
+
+    private long registrarPedido(long servicio) {
+        pedidosAtendidos++;
+        servicioTotalUs += servicio;
+        servicioMaximoUs = Math.max(servicioMaximoUs, servicio);
+        return servicio;
+    }
+
+    // Tiempo ocioso (p. ej. la espera del modo anticipatorio): el plato sigue girando
+    public synchronized void avanzarReloj(long us) {
+        relojUs += Math.max(0, us);
+    }
+
+    public synchronized long getRelojSimulado() {
+        return relojUs;
+    }
+
+    public synchronized ModeloTiempoDisco getModeloTiempo() {
+        return modeloTiempo;
+    }
+
+    public synchronized void setModeloTiempo(ModeloTiempoDisco modeloTiempo) {
+        if (modeloTiempo != null) {
+            this.modeloTiempo = modeloTiempo;
+        }
+    }
+
+    public synchronized long getPedidosAtendidos() {
+        return pedidosAtendidos;
+    }
+
+    public synchronized long getServicioTotalUs() {
+        return servicioTotalUs;
+    }
+
+    public synchronized int getCabezal() {
+        return cabezal;
+    }
+
+    public synchronized double getServicioPromedioMs() {
+        return pedidosAtendidos == 0 ? 0 : servicioTotalUs / 1000.0 / pedidosAtendidos;
+    }
+
+    public synchronized String getResumenTiempos() {
+        if (pedidosAtendidos == 0) {
+            return "   • Modelo " + modeloTiempo + "\n   • Sin pedidos atendidos\n";
+        }
+        return String.format("   • Modelo %s%n"
+                + "   • Reloj simulado: %.1f ms | %d pedidos, servicio medio %.2f ms (máx. %.2f ms)%n"
+                + "   • Búsqueda: %.1f ms | Rotación: %.1f ms | Transferencia: %.1f ms%n",
+                modeloTiempo, relojUs / 1000.0, pedidosAtendidos, getServicioPromedioMs(), servicioMaximoUs / 1000.0,
+                busquedaTotalUs / 1000.0, rotacionTotalUs / 1000.0, transferenciaTotalUs / 1000.0);
+    }
+
     public int getTotalBlocks() {
         return totalBlocks;
     }
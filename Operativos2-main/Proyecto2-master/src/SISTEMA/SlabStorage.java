@@ -0,0 +1,93 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Almacén fuera del heap para el contenido de los bloques del BufferCache.
+ * Reserva al inicio uno o varios ByteBuffer directos divididos en ranuras de
+ * tamaño fijo; cada CacheBlock solo guarda el número de su ranura. Así el
+ * heap no crece con la capacidad del buffer y el GC no recorre millones de
+ * arreglos pequeños.
+ */
+class SlabStorage {
+    private static final int BYTES_POR_SLAB = 64 * 1024 * 1024;
+
+    private ByteBuffer[] slabs;
+    private int tamañoRanura;
+    private int ranurasPorSlab;
+    private int totalRanuras;
+    private int[] libres;
+    private int totalLibres;
+    private byte[] ceros;
+
+    SlabStorage(int totalRanuras, int tamañoRanura) {
+        this.tamañoRanura = tamañoRanura;
+        this.totalRanuras = totalRanuras;
+        this.ranurasPorSlab = Math.max(1, BYTES_POR_SLAB / tamañoRanura);
+        int totalSlabs = (totalRanuras + ranurasPorSlab - 1) / ranurasPorSlab;
+        this.slabs = new ByteBuffer[totalSlabs];
+        for (int i = 0; i < totalSlabs; i++) {
+            int ranuras = Math.min(ranurasPorSlab, totalRanuras - i * ranurasPorSlab);
+            slabs[i] = ByteBuffer.allocateDirect(ranuras * tamañoRanura);
+        }
+        this.libres = new int[totalRanuras];
+        this.ceros = new byte[tamañoRanura];
+        reiniciar();
+    }
+
+    // Devuelve una ranura libre, o -1 si están todas ocupadas
+    synchronized int reservar() {
+        return totalLibres == 0 ? -1 : libres[--totalLibres];
+    }
+
+    synchronized void liberar(int ranura) {
+        libres[totalLibres++] = ranura;
+    }
+
+    synchronized void reiniciar() {
+        for (int i = 0; i < totalRanuras; i++) {
+            libres[i] = totalRanuras - 1 - i;
+        }
+        totalLibres = totalRanuras;
+    }
+
+    /**
+     * Copia 'datos' a la ranura (se recorta al tamaño de ranura; null
+     * equivale a un bloque en ceros). Devuelve cuántos bytes quedaron.
+     * Usa accesos absolutos, así que varias ranuras se pueden escribir a la vez.
+     */
+    int escribir(int ranura, byte[] datos) {
+        ByteBuffer slab = slabs[ranura / ranurasPorSlab];
+        int desplazamiento = (ranura % ranurasPorSlab) * tamañoRanura;
+        if (datos == null) {
+            slab.put(desplazamiento, ceros, 0, tamañoRanura);
+            return tamañoRanura;
+        }
+        int longitud = Math.min(datos.length, tamañoRanura);
+        slab.put(desplazamiento, datos, 0, longitud);
+        return longitud;
+    }
+
+    // Copia el contenido de 'origen' (sin mover su posición) a la ranura, recortado al tamaño de ranura
+    int escribir(int ranura, ByteBuffer origen) {
+        ByteBuffer slab = slabs[ranura / ranurasPorSlab];
+        int longitud = Math.min(origen.remaining(), tamañoRanura);
+        slab.put((ranura % ranurasPorSlab) * tamañoRanura, origen, origen.position(), longitud);
+        return longitud;
+    }
+
+    byte[] leer(int ranura, int longitud) {
+        ByteBuffer slab = slabs[ranura / ranurasPorSlab];
+        byte[] datos = new byte[longitud];
+        slab.get((ranura % ranurasPorSlab) * tamañoRanura, datos, 0, longitud);
+        return datos;
+    }
+
+    long getBytesReservados() {
+        return (long) totalRanuras * tamañoRanura;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import EDD.ListaDoble;
+import EDD.NodoDoble;
+
+/**
+ * Estado de la política W-TinyLFU del BufferCache.
+ * Todo bloque nuevo entra a una ventana LRU pequeña (~1% de la capacidad).
+ * Cuando la ventana se llena, su bloque más antiguo compite contra la víctima
+ * de la zona principal (SLRU con segmentos de prueba y protegido) y solo entra
+ * si el FrequencySketch lo estima más popular. Así un CREATE grande, cuyos
+ * bloques no se vuelven a pedir, no desplaza al conjunto caliente.
+ */
+class TinyLFUState {
+    static final int VENTANA = 3;
+    static final int PRUEBA = 4;
+    static final int PROTEGIDA = 5;
+
+    private int maxVentana;
+    private int maxPrincipal;
+    private int maxProtegida;
+    private ListaDoble<CacheBlock> ventana;
+    private ListaDoble<CacheBlock> prueba;
+    private ListaDoble<CacheBlock> protegida;
+    private FrequencySketch sketch;
+    private int admitidos;
+    private int rechazados;
+
+    TinyLFUState(int capacidad) {
+        this.maxVentana = Math.max(1, capacidad / 100);
+        this.maxPrincipal = Math.max(0, capacidad - maxVentana);
+        this.maxProtegida = maxPrincipal * 8 / 10;
+        this.ventana = new ListaDoble<>();
+        this.prueba = new ListaDoble<>();
+        this.protegida = new ListaDoble<>();
+        this.sketch = new FrequencySketch(capacidad);
+    }
+
+    // Toda petición (acierto o fallo) cuenta para la popularidad del bloque
+    void registrarAcceso(int blockNumber) {
+        sketch.incrementar(blockNumber);
+    }
+
+    void hit(CacheBlock block) {
+        switch (block.lista) {
+            case VENTANA:
+                ventana.moverAlFinal(block.nodo);
+                break;
+            case PRUEBA:
+                // Segundo acceso en la zona principal: pasa a protegida
+                prueba.quitar(block.nodo);
+                protegida.enlazarAlFinal(block.nodo);
+                block.lista = PROTEGIDA;
+                if (protegida.contarElementos() > maxProtegida) {
+                    NodoDoble<CacheBlock> degradado = protegida.quitarPrimero();
+                    prueba.enlazarAlFinal(degradado);
+                    degradado.dato.lista = PRUEBA;
+                }
+                break;
+            case PROTEGIDA:
+                protegida.moverAlFinal(block.nodo);
+                break;
+        }
+    }
+
+    /**
+     * Agrega un bloque nuevo a la ventana y, si hace falta, resuelve la
+     * admisión. Devuelve el bloque que debe salir del buffer (puede ser el
+     * candidato rechazado) o null si había espacio.
+     */
+    CacheBlock insertar(CacheBlock block) {
+        block.nodo = ventana.agregarAlFinal(block);
+        block.lista = VENTANA;
+        if (ventana.contarElementos() <= maxVentana) {
+            return null;
+        }
+
+        NodoDoble<CacheBlock> nodoCandidato = ventana.quitarPrimero();
+        CacheBlock candidato = nodoCandidato.dato;
+        if (prueba.contarElementos() + protegida.contarElementos() < maxPrincipal) {
+            prueba.enlazarAlFinal(nodoCandidato);
+            candidato.lista = PRUEBA;
+            return null;
+        }
+
+        ListaDoble<CacheBlock> origen = prueba.estaVacia() ? protegida : prueba;
+        NodoDoble<CacheBlock> nodoVictima = origen.getCabeza();
+        if (nodoVictima == null || sketch.estimar(candidato.getBlockNumber()) <= sketch.estimar(nodoVictima.dato.getBlockNumber())) {
+            rechazados++;
+            candidato.nodo = null;
+            candidato.lista = 0;
+            return candidato;
+        }
+
+        admitidos++;
+        origen.quitar(nodoVictima);
+        prueba.enlazarAlFinal(nodoCandidato);
+        candidato.lista = PRUEBA;
+        CacheBlock victima = nodoVictima.dato;
+        victima.nodo = null;
+        victima.lista = 0;
+        return victima;
+    }
+
+    void quitar(CacheBlock block) {
+        if (block.nodo == null) {
+            return;
+        }
+        switch (block.lista) {
+            case VENTANA:
+                ventana.quitar(block.nodo);
+                break;
+            case PRUEBA:
+                prueba.quitar(block.nodo);
+                break;
+            case PROTEGIDA:
+                protegida.quitar(block.nodo);
+                break;
+        }
+        block.nodo = null;
+        block.lista = 0;
+    }
+
+    void vaciar() {
+        ventana.vaciar();
+        prueba.vaciar();
+        protegida.vaciar();
+        sketch.vaciar();
+        admitidos = 0;
+        rechazados = 0;
+    }
+
+    String describir() {
+        return String.format("Ventana=%d Prueba=%d Protegida=%d | Admitidos=%d Rechazados=%d",
+                ventana.contarElementos(), prueba.contarElementos(), protegida.contarElementos(),
+                admitidos, rechazados);
+    }
+}
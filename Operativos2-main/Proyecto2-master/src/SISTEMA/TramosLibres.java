@@ -0,0 +1,149 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Árbol de tramos libres del disco, indexado tres veces: por inicio (para
+ * unir vecinos al liberar), por (longitud, inicio) para best-fit con una
+ * sola búsqueda ceiling(), y un árbol de segmentos sobre las posiciones del
+ * disco con el hueco más largo de cada rango, para que first-fit y next-fit
+ * bajen directo al primer hueco que alcanza. Las tres búsquedas cuestan
+ * O(log n), sin recorrer los huecos demasiado cortos.
+ */
+class TramosLibres {
+    private final TreeMap<Integer, Integer> porInicio = new TreeMap<>();
+    private final TreeSet<Long> porLongitud = new TreeSet<>();
+    // Hoja i: longitud del hueco que empieza en el bloque i (0 si no empieza ninguno);
+    // cada nodo guarda el máximo de sus hijos. La raíz es maximos[1].
+    private int[] maximos = new int[2];
+    private int hojas = 1;
+
+    private static long clave(int inicio, int longitud) {
+        return ((long) longitud << 32) | inicio;
+    }
+
+    private void agregar(int inicio, int longitud) {
+        porInicio.put(inicio, longitud);
+        porLongitud.add(clave(inicio, longitud));
+        fijarHoja(inicio, longitud);
+    }
+
+    private void quitar(int inicio, int longitud) {
+        porInicio.remove(inicio);
+        porLongitud.remove(clave(inicio, longitud));
+        fijarHoja(inicio, 0);
+    }
+
+    private void fijarHoja(int inicio, int longitud) {
+        int nodo = hojas + inicio;
+        maximos[nodo] = longitud;
+        for (nodo /= 2; nodo >= 1; nodo /= 2) {
+            maximos[nodo] = Math.max(maximos[2 * nodo], maximos[2 * nodo + 1]);
+        }
+    }
+
+    // Vuelve a armar el árbol con los huecos del mapa de bits
+    void reconstruir(MapaBits mapa) {
+        porInicio.clear();
+        porLongitud.clear();
+        hojas = Integer.highestOneBit(Math.max(1, mapa.getTamaño() - 1)) * 2;
+        maximos = new int[2 * hojas];
+        int inicio = mapa.siguienteLibre(0);
+        while (inicio >= 0) {
+            int fin = mapa.siguienteUsado(inicio);
+            agregar(inicio, fin - inicio);
+            inicio = mapa.siguienteLibre(fin);
+        }
+    }
+
+    // Saca [inicio, inicio + longitud) del tramo libre que lo contiene
+    void tomar(int inicio, int longitud) {
+        Map.Entry<Integer, Integer> hueco = porInicio.floorEntry(inicio);
+        int desde = hueco.getKey();
+        int hasta = desde + hueco.getValue();
+        quitar(desde, hueco.getValue());
+        if (inicio > desde) {
+            agregar(desde, inicio - desde);
+        }
+        if (inicio + longitud < hasta) {
+            agregar(inicio + longitud, hasta - inicio - longitud);
+        }
+    }
+
+    // Devuelve un tramo al árbol, uniéndolo con los huecos vecinos
+    void devolver(int inicio, int longitud) {
+        Map.Entry<Integer, Integer> antes = porInicio.lowerEntry(inicio);
+        if (antes != null && antes.getKey() + antes.getValue() == inicio) {
+            quitar(antes.getKey(), antes.getValue());
+            inicio = antes.getKey();
+            longitud += antes.getValue();
+        }
+        Integer despues = porInicio.get(inicio + longitud);
+        if (despues != null) {
+            quitar(inicio + longitud, despues);
+            longitud += despues;
+        }
+        agregar(inicio, longitud);
+    }
+
+    // true si [inicio, inicio + longitud) cae entero dentro de un tramo libre
+    boolean estaLibre(int inicio, int longitud) {
+        Map.Entry<Integer, Integer> hueco = porInicio.floorEntry(inicio);
+        return hueco != null && hueco.getKey() + hueco.getValue() >= inicio + longitud;
+    }
+
+    /**
+     * Inicio de un hueco de al menos 'longitud' bloques según la política,
+     * o -1 si no hay ninguno tan largo. NEXT_FIT sigue desde 'cursor'
+     * (empezando en el mismo cursor si el hueco que lo contiene alcanza) y da
+     * la vuelta.
+     */
+    int buscar(AllocationPolicy politica, int longitud, int cursor) {
+        switch (politica) {
+            case BEST_FIT:
+                Long mejor = porLongitud.ceiling(clave(0, longitud));
+                return mejor == null ? -1 : (int) (mejor & 0xFFFFFFFFL);
+            case NEXT_FIT:
+                Map.Entry<Integer, Integer> actual = porInicio.floorEntry(cursor);
+                if (actual != null && actual.getKey() + actual.getValue() - cursor >= longitud) {
+                    return cursor;
+                }
+                int inicio = primeroDesde(1, 0, hojas, cursor, longitud);
+                return inicio >= 0 ? inicio : primeroDesde(1, 0, hojas, 0, longitud);
+            default:
+                return primeroDesde(1, 0, hojas, 0, longitud);
+        }
+    }
+
+    // Primer hueco que empieza en 'desde' o después y tiene al menos 'longitud' bloques, o -1.
+    // Solo baja por los nodos cuyo máximo alcanza.
+    private int primeroDesde(int nodo, int izquierda, int derecha, int desde, int longitud) {
+        if (derecha <= desde || maximos[nodo] < longitud) {
+            return -1;
+        }
+        if (derecha - izquierda == 1) {
+            return izquierda;
+        }
+        int medio = (izquierda + derecha) >>> 1;
+        int inicio = primeroDesde(2 * nodo, izquierda, medio, desde, longitud);
+        return inicio >= 0 ? inicio : primeroDesde(2 * nodo + 1, medio, derecha, desde, longitud);
+    }
+
+    int getCantidad() {
+        return porInicio.size();
+    }
+
+    int getMayor() {
+        return porLongitud.isEmpty() ? 0 : (int) (porLongitud.last() >>> 32);
+    }
+
+    int getInicioDelMayor() {
+        return porLongitud.isEmpty() ? -1 : (int) (porLongitud.last() & 0xFFFFFFFFL);
+    }
+}
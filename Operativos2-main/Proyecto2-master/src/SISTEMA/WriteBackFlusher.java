@@ -0,0 +1,80 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package SISTEMA;
+
+/**
+ * Hilo de fondo del modo write-back: cada 'intervaloMs' (o antes, si el
+ * BufferCache avisa que se alcanzó la marca alta de bloques sucios) escribe
+ * de una sola vez todos los bloques sucios acumulados.
+ */
+class WriteBackFlusher implements Runnable {
+    private BufferCache buffer;
+    private long intervaloMs;
+    private volatile boolean activo;
+    private boolean avisado;
+    private Thread hilo;
+
+    WriteBackFlusher(BufferCache buffer, long intervaloMs) {
+        this.buffer = buffer;
+        this.intervaloMs = intervaloMs;
+        this.activo = false;
+        this.avisado = false;
+    }
+
+    void iniciar() {
+        activo = true;
+        hilo = new Thread(this, "WriteBackFlusher");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Detiene el hilo y espera a que termine: un lote que ya estaba
+     * escribiéndose acaba antes de volver, y ninguno empieza después. Quien
+     * llama no debe tener el candado de escritura del buffer ni el del
+     * FileSystem, porque el hilo los necesita para terminar ese lote.
+     */
+    void detener() {
+        activo = false;
+        avisar();
+        if (hilo == null || hilo == Thread.currentThread()) {
+            return;
+        }
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Despierta al hilo antes de que termine el intervalo
+    synchronized void avisar() {
+        avisado = true;
+        notifyAll();
+    }
+
+    @Override
+    public void run() {
+        while (activo) {
+            synchronized (this) {
+                if (!avisado) {
+                    try {
+                        wait(intervaloMs);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                avisado = false;
+            }
+            if (activo) {
+                buffer.sync();
+            }
+        }
+    }
+
+    long getIntervaloMs() {
+        return intervaloMs;
+    }
+}